@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Compares the virtual-thread and worker-pool execution models of the blocking endpoints.
+#
+# Starts the packaged application once per model, runs ConcurrencyLoadTest against it and
+# prints throughput and latency percentiles for each concurrency level.
+#
+# Usage: benchmarks/compare-execution-models.sh [movieCount] [durationSeconds] [concurrency...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+MOVIE_COUNT=${1:-100000}
+DURATION=${2:-30}
+shift $(( $# > 2 ? 2 : $# ))
+LEVELS=("${@:-1000 2500 5000 10000}")
+APP_JAR=target/quarkus-app/quarkus-run.jar
+BENCHMARK_JAR=benchmarks/target/benchmarks.jar
+
+for virtual_threads in true false; do
+  echo "== quarkus.virtual-threads.enabled=${virtual_threads}"
+  java -Dquarkus.virtual-threads.enabled="${virtual_threads}" -jar "${APP_JAR}" > "target/load-${virtual_threads}.log" 2>&1 &
+  app_pid=$!
+  trap 'kill ${app_pid} 2>/dev/null || true' EXIT
+  until curl -sf -o /dev/null 'http://localhost:8080/movies?page=1&size=1'; do
+    sleep 1
+  done
+  # shellcheck disable=SC2086
+  java -cp "${BENCHMARK_JAR}" com.moviemanager.benchmark.ConcurrencyLoadTest \
+    http://localhost:8080 "${MOVIE_COUNT}" "${DURATION}" ${LEVELS[*]}
+  kill "${app_pid}"
+  wait "${app_pid}" 2>/dev/null || true
+done
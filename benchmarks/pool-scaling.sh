@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Measures how throughput of database-bound requests scales with the size of the connection pool.
+#
+# Starts the packaged application in the prod profile, backed by a file database in a scratch
+# directory, once per pool size and runs ConcurrencyLoadTest with -Dendpoint=page against it.
+# The database and search index are kept between runs, so the movies are only imported once.
+# Settings that the prod profile sets are overridden with their %prod. name, which takes precedence
+# over the plain name, and tracing is disabled because no collector is running.
+#
+# Usage: benchmarks/pool-scaling.sh [movieCount] [durationSeconds] [concurrency] [poolSize...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+MOVIE_COUNT=${1:-1000000}
+DURATION=${2:-30}
+CONCURRENCY=${3:-512}
+shift $(( $# > 3 ? 3 : $# ))
+POOL_SIZES=("${@:-2 4 8 16 32 64}")
+APP_JAR=target/quarkus-app/quarkus-run.jar
+BENCHMARK_JAR=benchmarks/target/benchmarks.jar
+DATA_DIR=target/pool-scaling
+
+mkdir -p "${DATA_DIR}"
+# shellcheck disable=SC2068
+for pool_size in ${POOL_SIZES[@]}; do
+  echo "== quarkus.datasource.jdbc.max-size=${pool_size}"
+  java -Dquarkus.datasource.jdbc.max-size="${pool_size}" \
+    -D%prod.quarkus.datasource.jdbc.initial-size="${pool_size}" \
+    -D%prod.quarkus.datasource.jdbc.min-size="${pool_size}" \
+    -D%prod.quarkus.datasource.jdbc.url="jdbc:h2:file:./${DATA_DIR}/moviedb;QUERY_CACHE_SIZE=128;CACHE_SIZE=262144" \
+    -Dquarkus.otel.sdk.disabled=true \
+    -Dmoviemanager.search.directory="${DATA_DIR}/search-index" \
+    -jar "${APP_JAR}" > "target/pool-${pool_size}.log" 2>&1 &
+  app_pid=$!
+  trap 'kill ${app_pid} 2>/dev/null || true' EXIT
+  until curl -sf -o /dev/null 'http://localhost:8080/movies?page=1&size=1'; do
+    sleep 1
+  done
+  java -Dendpoint=page -cp "${BENCHMARK_JAR}" com.moviemanager.benchmark.ConcurrencyLoadTest \
+    http://localhost:8080 "${MOVIE_COUNT}" "${DURATION}" "${CONCURRENCY}"
+  kill "${app_pid}"
+  wait "${app_pid}" 2>/dev/null || true
+done
@@ -0,0 +1,143 @@
+package com.moviemanager.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load test for comparing the execution models of the blocking endpoints.
+ * <p>
+ * Each simulated client runs on its own virtual thread and sends the next request as soon as
+ * the previous one completes, so the number of in-flight requests equals the concurrency level.
+ * JMH threads are platform threads and do not scale to thousands of clients, which is why this
+ * test is a plain main class. Missing benchmark movies are imported first, then throughput and
+ * latency percentiles are printed per concurrency level.
+ * <p>
+ * By default every request is a {@code GET /movies/{imdbID}}, which is mostly answered from the
+ * movie cache. With {@code -Dendpoint=page} the clients request a page of 20 movies after a
+ * random cursor instead, which always queries the database and therefore measures how
+ * throughput scales with the size of the connection pool.
+ * <p>
+ * Usage: {@code java [-Dendpoint=movie|page] -cp benchmarks.jar com.moviemanager.benchmark.ConcurrencyLoadTest
+ * [baseUrl] [movieCount] [durationSeconds] [concurrency...]}
+ */
+public final class ConcurrencyLoadTest {
+
+    private static final boolean PAGES = "page".equals(System.getProperty("endpoint", "movie"));
+
+    private ConcurrencyLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int movieCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        int[] levels = args.length > 3
+                ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000, 2_500, 5_000, 10_000};
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            HttpLoadBenchmark.seed(client, baseUrl, movieCount);
+        }
+
+        System.out.printf("%-12s %12s %10s %10s %10s %10s %10s %8s%n",
+                "concurrency", "requests/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (int concurrency : levels) {
+            Result result = run(baseUrl, movieCount, concurrency, duration);
+            System.out.printf("%-12d %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    concurrency, result.throughput(), result.percentile(0.50), result.percentile(0.90),
+                    result.percentile(0.99), result.percentile(0.999), result.percentile(1.0), result.errors());
+        }
+    }
+
+    private static Result run(String baseUrl, int movieCount, int concurrency, Duration duration) throws Exception {
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            List<Future<ClientResult>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> runClient(client, baseUrl, movieCount, end)));
+            }
+
+            long[] latencies = new long[0];
+            int count = 0;
+            int errors = 0;
+            for (Future<ClientResult> future : futures) {
+                ClientResult clientResult = future.get();
+                if (count + clientResult.count() > latencies.length) {
+                    latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + clientResult.count()));
+                }
+                System.arraycopy(clientResult.latencies(), 0, latencies, count, clientResult.count());
+                count += clientResult.count();
+                errors += clientResult.errors();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(count / seconds, sorted, errors);
+        }
+    }
+
+    private static ClientResult runClient(HttpClient client, String baseUrl, int movieCount, long end) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int errors = 0;
+        while (System.nanoTime() < end) {
+            String imdbID = MovieDataset.imdbID(ThreadLocalRandom.current().nextInt(movieCount));
+            String path = PAGES
+                    ? "/movies?size=20&after=" + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(imdbID.getBytes(StandardCharsets.UTF_8))
+                    : "/movies/" + imdbID;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Accept", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            long started = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    errors++;
+                    continue;
+                }
+            } catch (Exception e) {
+                errors++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - started;
+        }
+        return new ClientResult(latencies, count, errors);
+    }
+
+    private record ClientResult(long[] latencies, int count, int errors) {
+    }
+
+    private record Result(double throughput, long[] sortedLatencies, int errors) {
+
+        double percentile(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
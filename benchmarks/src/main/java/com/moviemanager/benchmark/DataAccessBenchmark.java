@@ -0,0 +1,303 @@
+package com.moviemanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the data access behind the hot REST paths of the packaged application, one request
+ * at a time, against a database seeded with a large catalog.
+ * <p>
+ * Each trial starts the application given by {@code appJar} in the prod profile, so the schema
+ * comes from the Flyway migrations and every request runs through the resources, repositories
+ * and Hibernate as in production. ORM regressions such as N+1 queries or lost batch fetches
+ * therefore show up in the timings, and the mean number of statements each endpoint prepared
+ * is printed at the end of the trial. The database and search index are kept in
+ * {@code target/data-access-benchmark}, so the catalog is only imported once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DataAccessBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ACTOR_COUNT = 1_000; // Enough actors for the largest cast
+    private static final String DATA_DIR = "target/data-access-benchmark";
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    // Counts may be followed by an exemplar of the trace that recorded them
+    private static final Pattern STATEMENTS = Pattern.compile(
+            "^http_server_requests_statements_(sum|count)\\{[^}]*resource=\"([^\"]+)\"[^}]*} (\\S+)( # .*)?$");
+
+    /**
+     * Application started and seeded once per trial, shared by all benchmark methods.
+     */
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param("target/quarkus-app/quarkus-run.jar")
+        public String appJar;
+
+        @Param("1000000")
+        public int movieCount;
+
+        String baseUrl;
+        HttpClient client;
+        Process process;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException, InterruptedException {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            baseUrl = "http://localhost:" + port;
+            new File(DATA_DIR).mkdirs();
+            // Settings that the prod profile sets are overridden with their %prod. name, which takes precedence
+            process = new ProcessBuilder(
+                    ProcessHandle.current().info().command().orElse("java"),
+                    "-Dquarkus.http.port=" + port,
+                    "-D%prod.quarkus.datasource.jdbc.url=jdbc:h2:file:./" + DATA_DIR
+                            + "/moviedb;QUERY_CACHE_SIZE=128;CACHE_SIZE=262144",
+                    "-Dquarkus.otel.sdk.disabled=true",
+                    "-Dmoviemanager.search.directory=" + DATA_DIR + "/search-index",
+                    "-jar", appJar)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(DATA_DIR, "application.log"))
+                    .start();
+
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            try {
+                awaitStarted();
+                HttpLoadBenchmark.seed(client, baseUrl, movieCount);
+                createActors();
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                // JMH skips the tear down of a failed setup, and a running application locks the database
+                client.close();
+                process.destroy();
+                throw e;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException, InterruptedException {
+            try {
+                printStatements();
+            } finally {
+                client.close();
+                process.destroy();
+                process.waitFor(30, TimeUnit.SECONDS);
+            }
+        }
+
+        private void awaitStarted() throws IOException, InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited, see " + DATA_DIR + "/application.log");
+                }
+                try {
+                    if (send(HttpRequest.newBuilder(URI.create(baseUrl + "/movies?page=1&size=1")).build()).statusCode() == 200) {
+                        return;
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Application did not start, see " + DATA_DIR + "/application.log");
+                }
+                Thread.sleep(500);
+            }
+        }
+
+        /**
+         * Creates actors until {@value #ACTOR_COUNT} exist, as the cast benchmarks need.
+         */
+        private void createActors() throws IOException, InterruptedException {
+            HttpRequest lastActor = HttpRequest.newBuilder(URI.create(baseUrl + "/actors/" + ACTOR_COUNT)).build();
+            if (send(lastActor).statusCode() == 200) {
+                return;
+            }
+            long id = 0;
+            while (id < ACTOR_COUNT) {
+                HttpResponse<String> created = send(HttpRequest.newBuilder(URI.create(baseUrl + "/actors"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"Benchmark Actor\",\"birthdate\":\"1970-01-01\"}"))
+                        .build());
+                Matcher matcher = ID.matcher(created.body());
+                if (created.statusCode() != 201 || !matcher.find()) {
+                    throw new IllegalStateException("Creating an actor failed with status " + created.statusCode());
+                }
+                id = Long.parseLong(matcher.group(1));
+            }
+        }
+
+        /**
+         * Prints the mean number of statements each endpoint prepared during the trial.
+         */
+        private void printStatements() throws IOException, InterruptedException {
+            Map<String, double[]> totals = new LinkedHashMap<>(); // Sum and count per resource method
+            for (String line : send(HttpRequest.newBuilder(URI.create(baseUrl + "/q/metrics")).build()).body().split("\n")) {
+                Matcher matcher = STATEMENTS.matcher(line);
+                if (matcher.matches()) {
+                    double[] total = totals.computeIfAbsent(matcher.group(2), resource -> new double[2]);
+                    total["sum".equals(matcher.group(1)) ? 0 : 1] += Double.parseDouble(matcher.group(3));
+                }
+            }
+            System.out.println();
+            totals.forEach((resource, total) -> System.out.printf("%-40s %8.1f statements per request%n",
+                    resource, total[1] == 0 ? 0 : total[0] / total[1]));
+        }
+
+        HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+    /**
+     * Page requested by the pagination benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"1", "5000"})
+        public int page;
+
+        String cursor; // Encoded IMDb ID of the last movie of the previous page
+
+        @Setup(Level.Trial)
+        public void locateCursor() {
+            // Benchmark IMDb IDs sort in catalog order, and the prod profile loads no other movies
+            String after = page > 1 ? MovieDataset.imdbID((page - 1) * PAGE_SIZE - 1) : "";
+            cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(after.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Cast submitted with a movie update, and actors added to the cast of a movie.
+     */
+    @State(Scope.Benchmark)
+    public static class CastState {
+
+        @Param({"10", "100", "1000"})
+        public int castSize;
+
+        String updateBody;
+        String rejectedChangeBody;
+
+        @Setup(Level.Trial)
+        public void pickActors() {
+            List<Long> actorIds = new ArrayList<>();
+            for (int i = 0; i < castSize; i++) {
+                actorIds.add((long) (i * 7 % ACTOR_COUNT) + 1);
+            }
+            String ids = actorIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+            updateBody = "{\"title\":\"" + MovieDataset.title(0) + "\",\"releaseYear\":" + MovieDataset.releaseYear(0)
+                    + ",\"description\":\"" + MovieDataset.description(0) + "\",\"pictures\":[\""
+                    + MovieDataset.picture(0) + "\"],\"cast\":[" + ids + "]}";
+            // Actor IDs start at 1, so the last actor is never found and the change is rejected
+            rejectedChangeBody = "{\"add\":[" + ids + ",0]}";
+        }
+    }
+
+    /**
+     * {@code PATCH /movies/{imdbID}/cast} adding the cast and one unknown actor, which loads the
+     * movie and resolves every actor, then answers 400 Bad Request without writing anything.
+     * Apart from the load of the movie, the request measures the actor resolution shared by
+     * POST, PUT and PATCH.
+     */
+    @Benchmark
+    public int resolveCast(Application application, CastState cast) throws IOException, InterruptedException {
+        return expect(application, HttpRequest.newBuilder(URI.create(
+                        application.baseUrl + "/movies/" + MovieDataset.imdbID(1) + "/cast"))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(cast.rejectedChangeBody))
+                .build(), 400);
+    }
+
+    /**
+     * A whole {@code PUT /movies/{imdbID}} with an unchanged cast: resolving the actors, writing
+     * the movie, rendering its snapshot and recording the change.
+     */
+    @Benchmark
+    public int updateMovie(Application application, CastState cast) throws IOException, InterruptedException {
+        return expect(application, HttpRequest.newBuilder(URI.create(
+                        application.baseUrl + "/movies/" + MovieDataset.imdbID(0)))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(cast.updateBody))
+                .build(), 200);
+    }
+
+    /**
+     * An offset page of {@code GET /movies?page=}, including the count of all movies.
+     */
+    @Benchmark
+    public int offsetPage(Application application, PageState page) throws IOException, InterruptedException {
+        return get(application, "/movies?page=" + page.page + "&size=" + PAGE_SIZE);
+    }
+
+    /**
+     * A keyset page of {@code GET /movies?after=}, seeking on the primary key.
+     */
+    @Benchmark
+    public int keysetPage(Application application, PageState page) throws IOException, InterruptedException {
+        return get(application, "/movies?after=" + page.cursor + "&size=" + PAGE_SIZE);
+    }
+
+    /**
+     * A title search of {@code GET /movies/search}, answered by the search index and a batch of loads.
+     */
+    @Benchmark
+    public int titleSearch(Application application) throws IOException, InterruptedException {
+        return get(application, "/movies/search?title=" + MovieDataset.WORDS[7] + "+" + MovieDataset.WORDS[3]);
+    }
+
+    private static int get(Application application, String path) throws IOException, InterruptedException {
+        return expect(application, HttpRequest.newBuilder(URI.create(application.baseUrl + path))
+                .header("Accept", "application/json")
+                .build(), 200);
+    }
+
+    private static int expect(Application application, HttpRequest request, int status) throws IOException, InterruptedException {
+        HttpResponse<String> response = application.send(request);
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned " + response.statusCode());
+        }
+        return response.body().length();
+    }
+}
@@ -0,0 +1,214 @@
+package com.moviemanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the read endpoints of a running Movie Manager over HTTP with concurrent clients.
+ * <p>
+ * Throughput mode reports requests per millisecond, and sample time mode reports the latency
+ * distribution including the p50, p90, p99 and p99.9 percentiles. The target application is
+ * given by the {@code baseUrl} parameter. Before measuring, the catalog is seeded through the
+ * bulk import endpoint with {@code movieCount} synthetic movies unless they already exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+public class HttpLoadBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_ACTOR_COUNT = 9; // Actors created by import.sql, or by seed() on an empty database
+    private static final int SEED_BATCH_SIZE = 20_000; // Movies per import request, well below the 10 MB body limit
+
+    @Param("http://localhost:8080")
+    public String baseUrl;
+
+    @Param("1000000")
+    public int movieCount;
+
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        seed(client, baseUrl, movieCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        client.close();
+    }
+
+    @Benchmark
+    public int getMovieById() throws IOException, InterruptedException {
+        return get("/movies/" + MovieDataset.imdbID(randomMovie()));
+    }
+
+    @Benchmark
+    public int getMoviesOffsetPage() throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(movieCount / PAGE_SIZE) + 1;
+        return get("/movies?page=" + page + "&size=" + PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int getMoviesCursorPage() throws IOException, InterruptedException {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(MovieDataset.imdbID(randomMovie()).getBytes(StandardCharsets.UTF_8));
+        return get("/movies?after=" + cursor + "&size=" + PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int searchByTitle() throws IOException, InterruptedException {
+        String[] words = MovieDataset.WORDS;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return get("/movies/search?title=" + words[random.nextInt(words.length)] + "+" + words[random.nextInt(words.length)]);
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Imports the synthetic catalog through the bulk endpoint unless its last movie already exists.
+     * The movies are sent in requests of {@value #SEED_BATCH_SIZE}, because the HTTP server rejects
+     * larger bodies even though the endpoint streams them. The actors of the cast are created first when the database does not contain them, as is the
+     * case for the prod profile, which does not load import.sql.
+     */
+    static void seed(HttpClient client, String baseUrl, int movieCount) throws IOException, InterruptedException {
+        HttpRequest lastActor = HttpRequest.newBuilder(URI.create(baseUrl + "/actors/" + SEED_ACTOR_COUNT))
+                .header("Accept", "application/json")
+                .build();
+        if (client.send(lastActor, HttpResponse.BodyHandlers.discarding()).statusCode() == 404) {
+            for (int i = 1; i <= SEED_ACTOR_COUNT; i++) {
+                HttpRequest createActor = HttpRequest.newBuilder(URI.create(baseUrl + "/actors"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"Benchmark Actor " + i + "\",\"birthdate\":\"1970-01-01\"}"))
+                        .build();
+                client.send(createActor, HttpResponse.BodyHandlers.discarding());
+            }
+        }
+        HttpRequest lastMovie = HttpRequest.newBuilder(URI.create(baseUrl + "/movies/" + MovieDataset.imdbID(movieCount - 1)))
+                .header("Accept", "application/json")
+                .build();
+        if (client.send(lastMovie, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+            return;
+        }
+        // Movies left by an interrupted seed are rejected as duplicates, and the rest are imported
+        for (int batch = 0; batch < movieCount; batch += SEED_BATCH_SIZE) {
+            int from = batch;
+            int to = Math.min(from + SEED_BATCH_SIZE, movieCount);
+            HttpRequest importRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/movies/bulk"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .timeout(Duration.ofMinutes(10))
+                    .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new NdjsonMovies(from, to)))
+                    .build();
+            HttpResponse<String> imported = client.send(importRequest, HttpResponse.BodyHandlers.ofString());
+            if (imported.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + imported.statusCode() + ": " + imported.body());
+            }
+        }
+    }
+
+    private int randomMovie() {
+        return ThreadLocalRandom.current().nextInt(movieCount);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Accept", "application/json");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    /**
+     * Generates a range of the synthetic catalog as newline-delimited JSON on the fly, one movie per line.
+     */
+    private static final class NdjsonMovies extends InputStream {
+
+        private final int to;
+        private int next;
+        private byte[] line = new byte[0];
+        private int position;
+
+        NdjsonMovies(int from, int to) {
+            this.next = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read() {
+            if (!fill()) {
+                return -1;
+            }
+            return line[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean fill() {
+            if (position < line.length) {
+                return true;
+            }
+            if (next == to) {
+                return false;
+            }
+            long[] cast = MovieDataset.cast(next, 2, SEED_ACTOR_COUNT);
+            line = String.format("{\"imdbID\":\"%s\",\"title\":\"%s\",\"releaseYear\":%d,\"description\":\"%s\","
+                            + "\"pictures\":[\"%s\"],\"cast\":[%d,%d]}%n",
+                    MovieDataset.imdbID(next), MovieDataset.title(next), MovieDataset.releaseYear(next),
+                    MovieDataset.description(next), MovieDataset.picture(next), cast[0], cast[1])
+                    .getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            next++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.moviemanager.benchmark;
+
+/**
+ * Deterministic synthetic catalog shared by all benchmarks.
+ * <p>
+ * Movie {@code i} always gets the same IMDb ID, title, release year and description, so
+ * that benchmarks can pick existing rows and search terms without reading the data back.
+ * Benchmark IMDb IDs use the {@code bm} prefix and never clash with real IMDb IDs.
+ */
+final class MovieDataset {
+
+    static final String[] WORDS = {
+            "Harbor", "Shadow", "Empire", "River", "Winter", "Signal", "Garden", "Machine",
+            "Desert", "Echo", "Falcon", "Glass", "Hollow", "Iron", "Jungle", "Kingdom",
+            "Lantern", "Mirror", "Night", "Ocean", "Paper", "Quiet", "Rain", "Silver"
+    };
+
+    private MovieDataset() {
+    }
+
+    static String imdbID(int index) {
+        return String.format("bm%07d", index);
+    }
+
+    static String title(int index) {
+        return WORDS[index % WORDS.length] + " " + WORDS[(index / WORDS.length) % WORDS.length] + " " + index;
+    }
+
+    static int releaseYear(int index) {
+        return 1950 + index % 75;
+    }
+
+    static String description(int index) {
+        return "A story about the " + WORDS[(index / 7) % WORDS.length].toLowerCase()
+                + " and the " + WORDS[(index / 11) % WORDS.length].toLowerCase() + ".";
+    }
+
+    static String picture(int index) {
+        return "http://example.com/" + imdbID(index) + ".jpg";
+    }
+
+    /**
+     * Returns the actor IDs of a movie's cast, between 1 and {@code actorCount}.
+     */
+    static long[] cast(int index, int castSize, int actorCount) {
+        long[] cast = new long[castSize];
+        for (int i = 0; i < castSize; i++) {
+            cast[i] = (index * 31L + i * 7919L) % actorCount + 1;
+        }
+        return cast;
+    }
+}
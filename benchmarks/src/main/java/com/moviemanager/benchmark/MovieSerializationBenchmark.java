@@ -0,0 +1,80 @@
+package com.moviemanager.benchmark;
+
+import com.moviemanager.dto.ActorReadDTO;
+import com.moviemanager.dto.MovieReadDTO;
+import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.Movie;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON-B serialization of a single movie with casts of growing size, both as a
+ * {@link Movie} entity and as the {@link MovieReadDTO} read model served by the REST endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int castSize;
+
+    private Jsonb jsonb;
+    private Movie movie;
+    private MovieReadDTO readModel;
+
+    @Setup
+    public void setup() {
+        jsonb = JsonbBuilder.create();
+
+        List<Actor> actors = new ArrayList<>();
+        List<ActorReadDTO> actorReadModels = new ArrayList<>();
+        for (int i = 0; i < castSize; i++) {
+            Actor actor = new Actor("Actor " + i, LocalDate.of(1950 + i % 50, 1 + i % 12, 1 + i % 28));
+            actor.setId((long) i + 1);
+            actors.add(actor);
+            actorReadModels.add(new ActorReadDTO(actor.getId(), actor.getName(), actor.getBirthdate()));
+        }
+
+        List<String> pictures = List.of(MovieDataset.picture(0), MovieDataset.picture(1));
+        movie = new Movie(MovieDataset.imdbID(0), MovieDataset.title(0), MovieDataset.releaseYear(0),
+                MovieDataset.description(0), pictures, actors);
+        readModel = new MovieReadDTO(movie.getImdbID(), movie.getTitle(), movie.getReleaseYear(),
+                movie.getDescription(), pictures, actorReadModels);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        jsonb.close();
+    }
+
+    @Benchmark
+    public String serializeEntity() {
+        return jsonb.toJson(movie);
+    }
+
+    @Benchmark
+    public String serializeReadModel() {
+        return jsonb.toJson(readModel);
+    }
+}
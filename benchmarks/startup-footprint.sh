@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+# Compares startup time, memory footprint and throughput of the JVM and native builds.
+#
+# Starts each build in the prod profile, backed by a file database in a scratch directory that
+# both builds share, and reports per build:
+#   - time to first request: from launching the process until GET /movies answers 200, per start
+#   - RSS at idle: resident set size a few seconds after the last start
+#   - RSS under load: peak resident set size while ConcurrencyLoadTest runs against it
+#   - throughput and latency percentiles, as printed by ConcurrencyLoadTest
+# The benchmark movies are imported by an unmeasured start first, so every measured start opens
+# an already populated database and search index. Builds whose artifact is missing are skipped;
+# build them with "./mvnw package" and "./mvnw package -Pnative" first.
+# The database URL is overridden with its %prod. name, which takes precedence over the plain name,
+# and tracing is disabled because no collector is running.
+#
+# Usage: benchmarks/startup-footprint.sh [movieCount] [durationSeconds] [concurrency] [starts]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+MOVIE_COUNT=${1:-100000}
+DURATION=${2:-30}
+CONCURRENCY=${3:-256}
+STARTS=${4:-5}
+APP_JAR=target/quarkus-app/quarkus-run.jar
+BENCHMARK_JAR=benchmarks/target/benchmarks.jar
+DATA_DIR=target/startup-footprint
+READY_URL='http://localhost:8080/movies?page=1&size=1'
+
+NATIVE_RUNNER=$(ls target/*-runner 2>/dev/null | head -n 1 || true)
+
+start_app() {
+  local properties=(
+    -D%prod.quarkus.datasource.jdbc.url="jdbc:h2:file:./${DATA_DIR}/moviedb;QUERY_CACHE_SIZE=128;CACHE_SIZE=262144"
+    -Dquarkus.otel.sdk.disabled=true
+    -Dmoviemanager.search.directory="${DATA_DIR}/search-index"
+  )
+  if [[ $1 == jvm ]]; then
+    java "${properties[@]}" -jar "${APP_JAR}" > "target/startup-$1.log" 2>&1 &
+  else
+    "${NATIVE_RUNNER}" "${properties[@]}" > "target/startup-$1.log" 2>&1 &
+  fi
+  app_pid=$!
+  trap 'kill ${app_pid} 2>/dev/null || true' EXIT
+}
+
+wait_until_ready() {
+  until curl -sf -o /dev/null "${READY_URL}"; do
+    sleep 0.005
+  done
+}
+
+stop_app() {
+  kill "${app_pid}"
+  wait "${app_pid}" 2>/dev/null || true
+}
+
+rss_mb() {
+  echo $(( $(ps -o rss= -p "${app_pid}") / 1024 ))
+}
+
+mkdir -p "${DATA_DIR}"
+for build in jvm native; do
+  if [[ ${build} == jvm && ! -f ${APP_JAR} || ${build} == native && -z ${NATIVE_RUNNER} ]]; then
+    echo "== ${build}: not built, skipping"
+    continue
+  fi
+  echo "== ${build}"
+
+  start_app "${build}"
+  wait_until_ready
+  java -cp "${BENCHMARK_JAR}" com.moviemanager.benchmark.ConcurrencyLoadTest \
+    http://localhost:8080 "${MOVIE_COUNT}" 1 1 > /dev/null
+  stop_app
+
+  for ((run = 1; run <= STARTS; run++)); do
+    started=$(date +%s%N)
+    start_app "${build}"
+    wait_until_ready
+    echo "time to first request, start ${run}: $(( ($(date +%s%N) - started) / 1000000 )) ms"
+    if (( run < STARTS )); then
+      stop_app
+    fi
+  done
+
+  sleep 5
+  echo "RSS at idle: $(rss_mb) MB"
+
+  java -cp "${BENCHMARK_JAR}" com.moviemanager.benchmark.ConcurrencyLoadTest \
+    http://localhost:8080 "${MOVIE_COUNT}" "${DURATION}" "${CONCURRENCY}" &
+  load_pid=$!
+  peak=0
+  while kill -0 "${load_pid}" 2>/dev/null; do
+    rss=$(rss_mb)
+    peak=$(( rss > peak ? rss : peak ))
+    sleep 1
+  done
+  wait "${load_pid}"
+  echo "RSS under load (peak): ${peak} MB"
+  stop_app
+done
@@ -0,0 +1,116 @@
+package com.moviemanager.cache;
+
+import com.moviemanager.dto.MovieSnapshotDTO;
+import com.moviemanager.service.MovieSnapshotService;
+import com.moviemanager.support.TransactionCallbacks;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded in-memory cache of serialized movie representations, keyed by IMDb ID.
+ * <p>
+ * Size, expiry and metrics of the underlying Caffeine cache are configured under
+ * {@code quarkus.cache.caffeine."movie-by-id"}. Unknown IDs are cached as well, so every
+ * write path, including creation, must invalidate the affected IDs.
+ */
+@ApplicationScoped
+public class MovieCache {
+
+    public static final String CACHE_NAME = "movie-by-id";
+
+    @Inject
+    @CacheName(CACHE_NAME)
+    Cache cache;
+
+    @Inject
+    MovieSnapshotService movieSnapshotService;
+
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+
+    /**
+     * Returns the JSON representation of a movie, loading its pre-rendered snapshot on a cache miss.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return UTF-8 encoded JSON of the movie and its version, or null if the movie does not exist
+     */
+    public MovieSnapshotDTO get(String imdbID) {
+        return cache.<String, MovieSnapshotDTO>get(imdbID, this::render).await().indefinitely();
+    }
+
+    /**
+     * Returns the JSON representations of several movies, loading every one that is not cached
+     * with a single batch.
+     * <p>
+     * An entry is reserved for each missing movie before the batch is loaded, as {@link #get(String)}
+     * does for a single movie, so a write that invalidates one of them in the meantime keeps the
+     * loaded state out of the cache. Unknown IDs are cached as not found like in {@link #get(String)}.
+     *
+     * @param imdbIDs IMDb IDs of the movies, without duplicates
+     * @return UTF-8 encoded JSON of the movies and their versions keyed by IMDb ID, without entries for unknown IDs
+     */
+    public Map<String, MovieSnapshotDTO> getAll(List<String> imdbIDs) {
+        CompletableFuture<Map<String, MovieSnapshotDTO>> batch = new CompletableFuture<>();
+        List<String> claimed = new ArrayList<>();
+        Map<String, CompletableFuture<MovieSnapshotDTO>> pending = new HashMap<>();
+        for (String imdbID : imdbIDs) {
+            pending.put(imdbID, cache.<String, MovieSnapshotDTO>getAsync(imdbID, id -> {
+                claimed.add(id);
+                return Uni.createFrom().completionStage(batch.thenApply(snapshots -> snapshots.get(id)));
+            }).subscribeAsCompletionStage());
+        }
+        try {
+            batch.complete(claimed.isEmpty() ? Map.of() : movieSnapshotService.loadAll(claimed));
+        } catch (RuntimeException e) {
+            batch.completeExceptionally(e); // Failed entries are dropped from the cache
+            throw e;
+        }
+
+        Map<String, MovieSnapshotDTO> snapshots = new HashMap<>();
+        pending.forEach((imdbID, snapshot) -> {
+            if (snapshot.join() != null) {
+                snapshots.put(imdbID, snapshot.join());
+            }
+        });
+        return snapshots;
+    }
+
+    /**
+     * Returns the JSON representation of a movie only if it is already cached.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return UTF-8 encoded JSON of the movie and its version, or null if not cached or not found
+     */
+    public MovieSnapshotDTO getIfPresent(String imdbID) {
+        CompletableFuture<Object> cached = cache.as(CaffeineCache.class).getIfPresent(imdbID);
+        if (cached == null || !cached.isDone() || cached.isCompletedExceptionally()) {
+            return null;
+        }
+        return cached.join() instanceof MovieSnapshotDTO snapshot ? snapshot : null; // Not found is cached as a marker
+    }
+
+    /**
+     * Evicts a movie now and again after the current transaction commits, so that a concurrent
+     * reader cannot put the state from before the commit back into the cache.
+     *
+     * @param imdbID IMDb ID of the changed movie
+     */
+    public void invalidate(String imdbID) {
+        cache.invalidate(imdbID).await().indefinitely();
+        transactionCallbacks.afterCommit(() -> cache.invalidate(imdbID).await().indefinitely());
+    }
+
+    private MovieSnapshotDTO render(String imdbID) {
+        return movieSnapshotService.load(imdbID);
+    }
+}
@@ -0,0 +1,12 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of an Actor, built directly from a query projection.
+ */
+@RegisterForReflection
+public record ActorReadDTO(Long id, String name, LocalDate birthdate) {
+}
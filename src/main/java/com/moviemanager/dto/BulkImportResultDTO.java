@@ -0,0 +1,27 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk movie import.
+ *
+ * @param imported Number of movies that were created
+ * @param failed   Number of rows that were rejected
+ * @param errors   Details of the rejected rows, truncated to the first rejected rows on very large imports
+ */
+@RegisterForReflection
+public record BulkImportResultDTO(int imported, int failed, List<RowError> errors) {
+
+    /**
+     * Reason why a single row of a bulk import was rejected.
+     *
+     * @param row      Position of the row in the request body, starting from 1
+     * @param imdbID   IMDb ID of the row, if it could be read
+     * @param messages Error messages for the row
+     */
+    @RegisterForReflection
+    public record RowError(int row, String imdbID, List<String> messages) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.moviemanager.dto;
+
+import java.util.List;
+
+/**
+ * Actors to add to and remove from the cast of a movie.
+ *
+ * @param add    IDs of the actors to add (optional)
+ * @param remove IDs of the actors to remove (optional)
+ */
+public record CastChangeDTO(List<Long> add, List<Long> remove) {
+}
@@ -0,0 +1,14 @@
+package com.moviemanager.dto;
+
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of a change log entry, built directly from a query projection.
+ */
+@RegisterForReflection
+public record ChangeDTO(long seq, EntityType entityType, String entityId, ChangeType changeType, Instant changedAt) {
+}
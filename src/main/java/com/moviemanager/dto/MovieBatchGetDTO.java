@@ -0,0 +1,11 @@
+package com.moviemanager.dto;
+
+import java.util.List;
+
+/**
+ * Movies to retrieve with a single request.
+ *
+ * @param ids IMDb IDs of the movies, in the order the results are returned
+ */
+public record MovieBatchGetDTO(List<String> ids) {
+}
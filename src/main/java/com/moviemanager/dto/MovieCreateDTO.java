@@ -1,7 +1,10 @@
 package com.moviemanager.dto;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -59,6 +62,15 @@ public class MovieCreateDTO {
         return cast;
     }
 
+    /**
+     * Pictures are stored as a set, so a URL listed twice is rejected rather than silently dropped.
+     */
+    @JsonbTransient
+    @AssertTrue(message = "Pictures cannot contain duplicates")
+    public boolean isPicturesUnique() {
+        return pictures == null || new HashSet<>(pictures).size() == pictures.size();
+    }
+
     public void setImdbID(String imdbID) {
         this.imdbID = imdbID;
     }
@@ -0,0 +1,17 @@
+package com.moviemanager.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Structured filters of a movie search. Every filter that is set must match.
+ *
+ * @param yearFrom    Earliest release year, inclusive (optional)
+ * @param yearTo      Latest release year, inclusive (optional)
+ * @param actorIds    Actors that must all be part of the cast (empty for no restriction)
+ * @param titlePrefix Case-sensitive start of the title (optional)
+ * @param imdbIDs     Movies to choose from, such as the hits of a full-text search (optional)
+ */
+public record MovieFilterDTO(Integer yearFrom, Integer yearTo, Set<Long> actorIds, String titlePrefix,
+                             List<String> imdbIDs) {
+}
@@ -0,0 +1,13 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * Read-only view of a Movie together with its pictures and cast.
+ */
+@RegisterForReflection
+public record MovieReadDTO(String imdbID, String title, int releaseYear, String description,
+                           List<String> pictures, List<ActorReadDTO> cast) {
+}
@@ -0,0 +1,16 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.time.Instant;
+
+/**
+ * Pre-rendered JSON of a Movie together with the version of the movie it was rendered from.
+ */
+@RegisterForReflection
+public record MovieSnapshotDTO(byte[] document, long version, Instant lastModified) {
+
+    public VersionDTO toVersion() {
+        return new VersionDTO(version, lastModified);
+    }
+}
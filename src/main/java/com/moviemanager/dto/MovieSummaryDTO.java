@@ -0,0 +1,10 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Read-only view of the scalar columns of a Movie, built directly from a query projection.
+ */
+@RegisterForReflection
+public record MovieSummaryDTO(String imdbID, String title, int releaseYear, String description) {
+}
@@ -1,7 +1,10 @@
 package com.moviemanager.dto;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 
+import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -51,6 +54,15 @@ public class MovieUpdateDTO {
         return cast;
     }
 
+    /**
+     * Pictures are stored as a set, so a URL listed twice is rejected rather than silently dropped.
+     */
+    @JsonbTransient
+    @AssertTrue(message = "Pictures cannot contain duplicates")
+    public boolean isPicturesUnique() {
+        return pictures == null || new HashSet<>(pictures).size() == pictures.size();
+    }
+
     public void setTitle(String title) {
         this.title = title;
     }
@@ -0,0 +1,13 @@
+package com.moviemanager.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.time.Instant;
+
+/**
+ * Version and last modification time of an entity, used to answer conditional requests
+ * without loading the entity itself.
+ */
+@RegisterForReflection
+public record VersionDTO(long version, Instant lastModified) {
+}
@@ -4,13 +4,21 @@ import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.json.bind.annotation.JsonbTransient;
 import jakarta.persistence.*;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 /**
  * Entity representing an Actor.
+ * <p>
+ * Actors are referenced by the cast of every movie and rarely change, so they are kept in the
+ * second-level cache. The inverse {@code movies} collection is not cached, because it changes
+ * with every movie written.
  */
 @Entity
+@Cacheable
+@Table(indexes = @Index(name = "idx_actor_name", columnList = "name")) // Name prefixes and ordering by name
 public class Actor extends PanacheEntityBase {
 
     @Id
@@ -24,6 +32,14 @@ public class Actor extends PanacheEntityBase {
     @JsonbTransient
     private List<Movie> movies;
 
+    @Version
+    @JsonbTransient
+    private long version;
+
+    @Column(nullable = false)
+    @JsonbTransient
+    private Instant lastModified;
+
     public Actor() {
     }
 
@@ -64,4 +80,20 @@ public class Actor extends PanacheEntityBase {
     public void setMovies(List<Movie> movies) {
         this.movies = movies;
     }
+
+    @JsonbTransient
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonbTransient
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateLastModified() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
 }
@@ -0,0 +1,83 @@
+package com.moviemanager.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Entity recording one change of a movie or actor in the append-only change log.
+ * <p>
+ * Entries are written by the write paths in the same transaction as the change itself, so
+ * the log holds exactly the committed changes. The sequence number orders the entries and
+ * lets consumers continue after the last entry they have seen. It is taken from a pooled
+ * sequence, so entries are inserted together with the change in the same JDBC batch.
+ */
+@Entity
+@Table(name = "change_log")
+public class ChangeLogEntry extends PanacheEntityBase {
+
+    /**
+     * Kind of entity that changed.
+     */
+    public enum EntityType {
+        MOVIE, ACTOR
+    }
+
+    /**
+     * Kind of change.
+     */
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private String entityId; // IMDb ID of a movie or ID of an actor
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public ChangeLogEntry() {
+    }
+
+    public ChangeLogEntry(EntityType entityType, String entityId, ChangeType changeType) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.changedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -1,15 +1,36 @@
 package com.moviemanager.entity;
 
+import com.moviemanager.search.MovieSearchIndexListener;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.json.bind.annotation.JsonbTransient;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-import java.util.List;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Entity representing a Movie.
+ * <p>
+ * The movie itself is not kept in the second-level cache, because its representation is
+ * served from snapshots, but its pictures and the IDs of its cast are, so loading the
+ * collections of a managed movie resolves the actors from the cached {@link Actor} entries.
+ * <p>
+ * Pictures and cast are sets, ordered by picture URL and actor ID when loaded. Unlike lists
+ * without an index column, Hibernate updates sets row by row, as long as the collection itself
+ * is changed rather than replaced by a new one.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_movie_year_title", columnList = "releaseYear, title"), // Year ranges and ordering by year
+        @Index(name = "idx_movie_title", columnList = "title") // Title prefixes and ordering by title
+})
+@EntityListeners(MovieSearchIndexListener.class)
 public class Movie extends PanacheEntityBase {
 
     @Id
@@ -26,27 +47,45 @@ public class Movie extends PanacheEntityBase {
     private String description;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "movie_pictures", joinColumns = @JoinColumn(name = "imdbID"))
-    private List<String> pictures;
+    @OrderBy
+    private Set<String> pictures = new LinkedHashSet<>();
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
-            name = "movie_cast",
+            name = "movie_cast", // Primary key (movie_imdbID, actor_id) also serves the cast of a movie
             joinColumns = @JoinColumn(name = "movie_imdbID"),
-            inverseJoinColumns = @JoinColumn(name = "actor_id")
+            inverseJoinColumns = @JoinColumn(name = "actor_id"),
+            indexes = @Index(name = "idx_movie_cast_actor", columnList = "actor_id, movie_imdbID") // Filmographies in IMDb ID order
     )
-    private List<Actor> cast;
+    @OrderBy("id")
+    private Set<Actor> cast = new LinkedHashSet<>();
+
+    @Version
+    @JsonbTransient
+    private long version;
+
+    @Column(nullable = false)
+    @JsonbTransient
+    private Instant lastModified;
 
     public Movie() {
     }
 
-    public Movie(String imdbID, String title, int releaseYear, String description, List<String> pictures, List<Actor> cast) {
+    public Movie(String imdbID, String title, int releaseYear, String description,
+                 Collection<String> pictures, Collection<Actor> cast) {
         this.imdbID = imdbID;
         this.title = title;
         this.releaseYear = releaseYear;
         this.description = description;
-        this.pictures = pictures;
-        this.cast = cast;
+        if (pictures != null) {
+            this.pictures.addAll(pictures);
+        }
+        if (cast != null) {
+            this.cast.addAll(cast);
+        }
     }
 
     public String getImdbID() {
@@ -73,11 +112,11 @@ public class Movie extends PanacheEntityBase {
         this.description = description;
     }
 
-    public List<String> getPictures() {
+    public Set<String> getPictures() {
         return pictures;
     }
 
-    public List<Actor> getCast() {
+    public Set<Actor> getCast() {
         return cast;
     }
 
@@ -89,11 +128,52 @@ public class Movie extends PanacheEntityBase {
         this.releaseYear = releaseYear;
     }
 
-    public void setPictures(List<String> pictures) {
-        this.pictures = pictures;
+    /**
+     * Replaces the pictures by changing the collection in place, so that Hibernate only deletes
+     * the removed pictures and inserts the added ones instead of rewriting all of them.
+     *
+     * @param pictures New pictures, or null for none
+     */
+    public void replacePictures(Collection<String> pictures) {
+        Set<String> replacement = pictures == null ? Set.of() : new LinkedHashSet<>(pictures);
+        this.pictures.retainAll(replacement);
+        this.pictures.addAll(replacement);
+    }
+
+    /**
+     * Replaces the cast by changing the collection in place, so that Hibernate only deletes the
+     * rows of removed actors and inserts the rows of added ones instead of rewriting all of them.
+     *
+     * @param cast New cast
+     */
+    public void replaceCast(Collection<Actor> cast) {
+        Set<Actor> replacement = new LinkedHashSet<>(cast);
+        this.cast.retainAll(replacement);
+        this.cast.addAll(replacement);
+    }
+
+    @JsonbTransient
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonbTransient
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Marks the movie as changed although none of its own fields did, so that its version is
+     * incremented when the persistence context is flushed.
+     */
+    public void markModified() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        lastModified = now.isAfter(lastModified) ? now : lastModified.plusMillis(1); // Always a change
     }
 
-    public void setCast(List<Actor> cast) {
-        this.cast = cast;
+    @PrePersist
+    @PreUpdate
+    void updateLastModified() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
     }
 }
@@ -0,0 +1,69 @@
+package com.moviemanager.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entity holding the pre-rendered JSON representation of a Movie, including its pictures and cast.
+ */
+@Entity
+@Table(name = "movie_snapshot")
+public class MovieSnapshot extends PanacheEntityBase {
+
+    @Id
+    private String imdbID;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] document;
+
+    @Column(nullable = false)
+    private long version; // Version of the movie the document was rendered from
+
+    @Column(nullable = false)
+    private Instant lastModified;
+
+    public MovieSnapshot() {
+    }
+
+    public MovieSnapshot(String imdbID, byte[] document, long version, Instant lastModified) {
+        this.imdbID = imdbID;
+        this.document = document;
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public String getImdbID() {
+        return imdbID;
+    }
+
+    public void setImdbID(String imdbID) {
+        this.imdbID = imdbID;
+    }
+
+    public byte[] getDocument() {
+        return document;
+    }
+
+    public void setDocument(byte[] document) {
+        this.document = document;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+}
@@ -1,7 +1,10 @@
 package com.moviemanager.exception;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
 import java.util.List;
 
+@RegisterForReflection
 public class ErrorResponse {
     private String message;
     private List<String> errors;
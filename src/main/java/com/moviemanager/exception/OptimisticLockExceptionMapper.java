@@ -0,0 +1,21 @@
+package com.moviemanager.exception;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Maps a version conflict detected while flushing an update to 412 Precondition Failed,
+ * the same status a stale If-Match header produces.
+ */
+@Provider
+public class OptimisticLockExceptionMapper implements ExceptionMapper<OptimisticLockException> {
+
+    @Override
+    public Response toResponse(OptimisticLockException exception) {
+        return Response.status(Response.Status.PRECONDITION_FAILED)
+                .entity(new ErrorResponse("Resource was modified by another request."))
+                .build();
+    }
+}
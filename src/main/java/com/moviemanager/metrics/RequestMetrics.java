@@ -0,0 +1,88 @@
+package com.moviemanager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.quarkus.arc.ClientProxy;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import org.jboss.resteasy.reactive.server.ServerResponseFilter;
+import org.jboss.resteasy.reactive.server.SimpleResourceInfo;
+
+import java.time.Duration;
+
+/**
+ * Per-endpoint request metrics, published at {@code /q/metrics}.
+ * <p>
+ * Request latency and counts by status code are recorded by the Micrometer HTTP server binder
+ * as {@code http_server_requests_seconds}; this class turns that timer into a histogram, so
+ * percentiles can be aggregated across instances. In addition, the number of SQL statements
+ * each request prepared is recorded per resource method as
+ * {@code http_server_requests_statements}, which makes N+1 query regressions visible as a
+ * shift of its distribution. Statements are counted until the response has ended, so those
+ * issued while a streamed body is written count as well.
+ */
+public class RequestMetrics {
+
+    static final String REQUESTS = "http.server.requests";
+    static final String STATEMENTS = "http.server.requests.statements";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    StatementCounter statementCounter;
+
+    /**
+     * Publishes histogram buckets for request latencies and statement counts.
+     */
+    @Produces
+    @Singleton
+    MeterFilter histograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (REQUESTS.equals(id.getName())) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                            .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos())
+                            .build()
+                            .merge(config);
+                }
+                if (STATEMENTS.equals(id.getName())) {
+                    return DistributionStatisticConfig.builder()
+                            .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+
+    /**
+     * Records the statements of a request that was routed to a resource method once its
+     * response has ended. The filter runs before the body is written, and a
+     * {@code StreamingOutput} body issues its queries while it is written.
+     */
+    @ServerResponseFilter
+    public void recordStatements(SimpleResourceInfo resourceInfo, ContainerResponseContext response,
+                                 RoutingContext routingContext) {
+        if (resourceInfo == null || resourceInfo.getMethodName() == null) {
+            return;
+        }
+        DistributionSummary statements = DistributionSummary.builder(STATEMENTS)
+                .description("SQL statements prepared per request")
+                .tag("resource", resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getMethodName())
+                .tag("status", Integer.toString(response.getStatus()))
+                .register(registry);
+        StatementCounter counter = ClientProxy.unwrap(statementCounter); // The request context is gone by then
+        routingContext.addEndHandler(ended -> statements.record(counter.getCount()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.moviemanager.metrics;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Counts the SQL statements prepared while handling the current HTTP request.
+ */
+@RequestScoped
+public class StatementCounter {
+
+    private int count;
+
+    void increment() {
+        count++;
+    }
+
+    /**
+     * @return Number of statements prepared so far in this request
+     */
+    public int getCount() {
+        return count;
+    }
+}
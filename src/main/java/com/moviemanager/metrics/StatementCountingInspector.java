@@ -0,0 +1,29 @@
+package com.moviemanager.metrics;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Attributes every SQL statement Hibernate prepares to the HTTP request that issued it.
+ * <p>
+ * Statements prepared outside a request, such as while rebuilding the search index at
+ * startup, are not counted. The SQL is passed on unchanged.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class StatementCountingInspector implements StatementInspector {
+
+    @Inject
+    StatementCounter statementCounter;
+
+    @Override
+    public String inspect(String sql) {
+        if (Arc.container().requestContext().isActive()) {
+            statementCounter.increment();
+        }
+        return sql;
+    }
+}
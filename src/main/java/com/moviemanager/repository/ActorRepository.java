@@ -1,12 +1,174 @@
 package com.moviemanager.repository;
 
+import com.moviemanager.dto.ActorReadDTO;
+import com.moviemanager.dto.VersionDTO;
 import com.moviemanager.entity.Actor;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Cache;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Repository for managing Actor entities.
+ * <p>
+ * Actors are kept in the second-level cache, and the read queries below are stored in the query
+ * cache. Hibernate invalidates cached query results whenever the actor table is written, so they
+ * never outlive an update or delete, including bulk deletes.
  */
 @ApplicationScoped
 public class ActorRepository implements PanacheRepository<Actor> {
+
+    private static final int DELETE_CHUNK_SIZE = 500; // Maximum number of IDs per delete statement
+
+    /**
+     * Retrieves the actors that follow the given ID in primary key order.
+     *
+     * @param afterId ID of the last actor of the previous page, or null for the first page
+     * @param limit   Maximum number of actors to return
+     * @return Actors ordered by ID
+     */
+    public List<ActorReadDTO> findAfter(Long afterId, int limit) {
+        PanacheQuery<Actor> query = afterId == null
+                ? findAll(Sort.by("id"))
+                : find("id > ?1", Sort.by("id"), afterId);
+        return query.project(ActorReadDTO.class).range(0, limit - 1).withHint(HibernateHints.HINT_CACHEABLE, true).list();
+    }
+
+    /**
+     * Retrieves the actors whose name starts with the given prefix, ordered by name.
+     * <p>
+     * The {@code idx_actor_name} index serves both the prefix and the order. Pages continue after
+     * the name and ID of the previous page's last actor, the ID breaking ties between equal names.
+     *
+     * @param namePrefix Case-sensitive start of the name
+     * @param afterName  Name of the last actor of the previous page, or null for the first page
+     * @param afterId    ID of the last actor of the previous page, or null for the first page
+     * @param limit      Maximum number of actors to return
+     * @return Matching actors ordered by name and ID
+     */
+    public List<ActorReadDTO> findByNamePrefixAfter(String namePrefix, String afterName, Long afterId, int limit) {
+        String query = "name like :namePrefix escape '\\'";
+        Parameters parameters = Parameters.with("namePrefix", LikePatterns.startsWith(namePrefix));
+        if (afterName != null) {
+            query += " and name >= :afterName and (name > :afterName or id > :afterId)";
+            parameters.and("afterName", afterName).and("afterId", afterId);
+        }
+        return find(query, Sort.by("name").and("id"), parameters)
+                .project(ActorReadDTO.class).range(0, limit - 1).withHint(HibernateHints.HINT_CACHEABLE, true).list();
+    }
+
+    /**
+     * Retrieves the read model of an actor by ID.
+     *
+     * @param id ID of the actor
+     * @return The actor, or null if not found
+     */
+    public ActorReadDTO findReadModelById(Long id) {
+        return find("id", id).project(ActorReadDTO.class).withHint(HibernateHints.HINT_CACHEABLE, true).firstResult();
+    }
+
+    /**
+     * Retrieves the actors with the given IDs.
+     * <p>
+     * Actors held by the second-level cache are taken from there, and the remaining ones are
+     * loaded with a single query, so resolving the cast of a movie usually does not touch the
+     * database at all. Hibernate's multi-load API is not used because it bypasses the cache.
+     *
+     * @param ids IDs of the actors
+     * @return The distinct actors that exist, in no particular order
+     */
+    @WithSpan
+    public List<Actor> findByIds(Collection<Long> ids) {
+        Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+        Map<Boolean, List<Long>> byCached = ids.stream()
+                .distinct()
+                .collect(Collectors.partitioningBy(id -> cache.contains(Actor.class, id)));
+        List<Actor> actors = byCached.get(true).stream()
+                .map(this::findById)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!byCached.get(false).isEmpty()) {
+            actors.addAll(list("id in ?1", byCached.get(false)));
+        }
+        Span.current()
+                .setAttribute("moviemanager.actors.requested", byCached.get(true).size() + byCached.get(false).size())
+                .setAttribute("moviemanager.actors.cached", byCached.get(true).size())
+                .setAttribute("moviemanager.actors.found", actors.size());
+        return actors;
+    }
+
+    /**
+     * Retrieves only the version of an actor, to answer conditional requests without loading it.
+     *
+     * @param id ID of the actor
+     * @return Version and last modification time, or null if not found
+     */
+    public VersionDTO findVersionById(Long id) {
+        return find("id", id).project(VersionDTO.class).withHint(HibernateHints.HINT_CACHEABLE, true).firstResult();
+    }
+
+    /**
+     * Tells whether any movie's cast contains the given actor.
+     * <p>
+     * The check stops at the first matching row of the {@code movie_cast} index instead of
+     * loading the actor's movies, so its cost does not depend on the size of the filmography.
+     *
+     * @param id ID of the actor
+     * @return True if the actor plays in at least one movie
+     */
+    public boolean isReferenced(Long id) {
+        return !getEntityManager()
+                .createQuery("select m.imdbID from Movie m join m.cast a where a.id = ?1", String.class)
+                .setParameter(1, id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Deletes every actor that does not play in any movie.
+     * <p>
+     * The unreferenced actors are selected first, so their IDs can be reported, and then deleted
+     * in chunks of {@value #DELETE_CHUNK_SIZE}. The delete repeats the check, so an actor cast in
+     * a movie in the meantime is kept and left out of the result.
+     *
+     * @return IDs of the deleted actors
+     */
+    public List<Long> deleteUnreferenced() {
+        List<Long> candidates = getEntityManager()
+                .createQuery("select a.id from Actor a where not exists "
+                        + "(select 1 from Movie m join m.cast c where c.id = a.id) order by a.id", Long.class)
+                .getResultList();
+        List<Long> deleted = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> ids = candidates.subList(from, Math.min(from + DELETE_CHUNK_SIZE, candidates.size()));
+            int count = getEntityManager()
+                    .createQuery("delete from Actor a where a.id in ?1 and not exists "
+                            + "(select 1 from Movie m join m.cast c where c.id = a.id)")
+                    .setParameter(1, ids)
+                    .executeUpdate();
+            if (count == ids.size()) {
+                deleted.addAll(ids);
+            } else {
+                List<Long> kept = getEntityManager()
+                        .createQuery("select a.id from Actor a where a.id in ?1", Long.class)
+                        .setParameter(1, ids)
+                        .getResultList();
+                ids.stream().filter(id -> !kept.contains(id)).forEach(deleted::add);
+            }
+        }
+        return deleted;
+    }
 }
@@ -0,0 +1,43 @@
+package com.moviemanager.repository;
+
+import com.moviemanager.dto.ChangeDTO;
+import com.moviemanager.entity.ChangeLogEntry;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+
+/**
+ * Repository for managing ChangeLogEntry entities.
+ */
+@ApplicationScoped
+public class ChangeLogRepository implements PanacheRepositoryBase<ChangeLogEntry, Long> {
+
+    /**
+     * Retrieves the entries within a range of sequence numbers, seeking on the primary key.
+     *
+     * @param since Sequence number after which to start
+     * @param upTo  Highest sequence number to return
+     * @param limit Maximum number of entries to return
+     * @return Entries ordered by sequence number
+     */
+    public List<ChangeDTO> findBetween(long since, long upTo, int limit) {
+        return find("seq > ?1 and seq <= ?2", Sort.by("seq"), since, upTo)
+                .project(ChangeDTO.class)
+                .range(0, limit - 1)
+                .list();
+    }
+
+    /**
+     * Retrieves the highest sequence number in the log.
+     *
+     * @return Highest sequence number, or 0 if the log is empty
+     */
+    public long findLastSeq() {
+        Long last = getEntityManager()
+                .createQuery("select max(c.seq) from ChangeLogEntry c", Long.class)
+                .getSingleResult();
+        return last == null ? 0 : last;
+    }
+}
@@ -0,0 +1,23 @@
+package com.moviemanager.repository;
+
+/**
+ * Builds patterns for {@code like ... escape '\'} conditions from user input.
+ */
+final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    /**
+     * Builds a pattern matching every value that starts with the given prefix.
+     * <p>
+     * Wildcards in the prefix are escaped, so they match literally. Because the pattern only
+     * has a trailing wildcard, the database can answer it with a range scan over an index.
+     *
+     * @param prefix Start of the value, as given by the user
+     * @return Pattern for a {@code like} condition with {@code \} as escape character
+     */
+    static String startsWith(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
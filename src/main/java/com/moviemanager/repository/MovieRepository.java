@@ -1,12 +1,284 @@
 package com.moviemanager.repository;
 
+import com.moviemanager.dto.ActorReadDTO;
+import com.moviemanager.dto.MovieFilterDTO;
+import com.moviemanager.dto.MovieReadDTO;
+import com.moviemanager.dto.MovieSummaryDTO;
+import com.moviemanager.dto.VersionDTO;
 import com.moviemanager.entity.Movie;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * Repository for managing Movie entities.
+ * <p>
+ * Besides the managed entities used by the write paths, it provides a read model that
+ * projects movies straight into immutable DTOs, so read endpoints never attach entities
+ * to the persistence context.
  */
 @ApplicationScoped
 public class MovieRepository implements PanacheRepositoryBase<Movie, String> {
+
+    private static final int FETCH_CHUNK_SIZE = 500; // Maximum number of IDs per collection fetch query
+
+    /**
+     * Retrieves the movies that follow the given IMDb ID in primary key order.
+     * <p>
+     * The query seeks on the primary key index instead of skipping rows with an offset,
+     * so every page costs the same regardless of how deep into the catalog it is.
+     *
+     * @param afterImdbID IMDb ID of the last movie of the previous page, or null for the first page
+     * @param limit       Maximum number of movies to return
+     * @return Movies ordered by IMDb ID
+     */
+    public List<MovieSummaryDTO> findAfter(String afterImdbID, int limit) {
+        PanacheQuery<Movie> query = afterImdbID == null
+                ? findAll(Sort.by("imdbID"))
+                : find("imdbID > ?1", Sort.by("imdbID"), afterImdbID);
+        return query.project(MovieSummaryDTO.class).range(0, limit - 1).list();
+    }
+
+    /**
+     * Searches the movies that match every given filter.
+     * <p>
+     * The query is assembled from the filters that are set. Ordered by year, the
+     * {@code idx_movie_year_title} index serves both a year range and the order, and ordered by
+     * title, {@code idx_movie_title} serves both a title prefix and the order. Pages continue
+     * after the sort key of the previous page's last movie instead of skipping rows with an
+     * offset, so deep pages cost the same as the first.
+     *
+     * @param filter Filters the movies must match
+     * @param sort   Order of the results, or null for no particular order
+     * @param after  Sort key of the last movie of the previous page, or null for the first page
+     * @param limit  Maximum number of movies to return
+     * @return Matching movies in the requested order
+     * @throws IllegalArgumentException if the sort key does not belong to the order
+     */
+    public List<MovieSummaryDTO> search(MovieFilterDTO filter, MovieSort sort, List<String> after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Parameters parameters = new Parameters();
+        if (filter.yearFrom() != null) {
+            conditions.add("releaseYear >= :yearFrom");
+            parameters.and("yearFrom", filter.yearFrom());
+        }
+        if (filter.yearTo() != null) {
+            conditions.add("releaseYear <= :yearTo");
+            parameters.and("yearTo", filter.yearTo());
+        }
+        if (filter.titlePrefix() != null) {
+            conditions.add("title like :titlePrefix escape '\\'");
+            parameters.and("titlePrefix", LikePatterns.startsWith(filter.titlePrefix()));
+        }
+        if (!filter.actorIds().isEmpty()) {
+            // One pass over the movie_cast index finds the movies that contain every actor
+            conditions.add("imdbID in (select c.imdbID from Movie c join c.cast a where a.id in :actorIds "
+                    + "group by c.imdbID having count(a.id) = :actorCount)");
+            parameters.and("actorIds", filter.actorIds()).and("actorCount", (long) filter.actorIds().size());
+        }
+        if (filter.imdbIDs() != null) {
+            conditions.add("imdbID in :imdbIDs");
+            parameters.and("imdbIDs", filter.imdbIDs());
+        }
+        if (after != null) {
+            conditions.add(sort.keysetCondition(sort.parseKey(after), parameters));
+        }
+
+        String query = String.join(" and ", conditions);
+        PanacheQuery<Movie> panacheQuery;
+        if (sort == null) {
+            panacheQuery = conditions.isEmpty() ? findAll() : find(query, parameters);
+        } else {
+            panacheQuery = conditions.isEmpty() ? findAll(sort.toSort()) : find(query, sort.toSort(), parameters);
+        }
+        return panacheQuery.project(MovieSummaryDTO.class).range(0, limit - 1).list();
+    }
+
+    /**
+     * Retrieves the read model of a movie by IMDb ID.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return The movie with its pictures and cast, or null if not found
+     */
+    public MovieReadDTO findReadModelById(String imdbID) {
+        MovieSummaryDTO summary = find("imdbID", imdbID).project(MovieSummaryDTO.class).firstResult();
+        if (summary == null) {
+            return null;
+        }
+        return toReadModels(List.of(summary)).get(0);
+    }
+
+    /**
+     * Retrieves the summaries of the given movies in the order of the given IDs.
+     *
+     * @param imdbIDs IMDb IDs of the movies
+     * @return Summaries of the movies that exist, in the order of the IDs
+     */
+    public List<MovieSummaryDTO> findSummariesByIds(List<String> imdbIDs) {
+        if (imdbIDs.isEmpty()) {
+            return List.of();
+        }
+        Map<String, MovieSummaryDTO> summaries = find("imdbID in ?1", imdbIDs)
+                .project(MovieSummaryDTO.class)
+                .list()
+                .stream()
+                .collect(Collectors.toMap(MovieSummaryDTO::imdbID, Function.identity()));
+        return imdbIDs.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves only the version of a movie, to answer conditional requests without loading it.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return Version and last modification time, or null if not found
+     */
+    public VersionDTO findVersionById(String imdbID) {
+        return find("imdbID", imdbID).project(VersionDTO.class).firstResult();
+    }
+
+    /**
+     * Retrieves the versions of the given movies.
+     *
+     * @param imdbIDs IMDb IDs of the movies
+     * @return Version and last modification time by IMDb ID, for the movies that exist
+     */
+    public Map<String, VersionDTO> findVersionsByIds(List<String> imdbIDs) {
+        Map<String, VersionDTO> versions = new HashMap<>();
+        getEntityManager()
+                .createQuery("select m.imdbID, m.version, m.lastModified from Movie m where m.imdbID in ?1", Object[].class)
+                .setParameter(1, imdbIDs)
+                .getResultList()
+                .forEach(row -> versions.put((String) row[0], new VersionDTO((Long) row[1], (Instant) row[2])));
+        return versions;
+    }
+
+    /**
+     * Increments the version of the given movies, for example because the representation of
+     * those movies embeds a changed actor.
+     * <p>
+     * The movies are loaded and changed one by one, with one query per chunk of
+     * {@value #FETCH_CHUNK_SIZE} movies, instead of being updated by a bulk statement. Hibernate
+     * cannot tell which rows a bulk statement changes, so it schedules the cached casts and
+     * pictures of all movies for eviction, which only the read-write strategy happens to ignore.
+     * Changing the entities keeps the second-level cache correct under any strategy and applies
+     * the optimistic version check to each movie.
+     *
+     * @param imdbIDs IMDb IDs of the changed movies
+     */
+    public void markModified(List<String> imdbIDs) {
+        for (int from = 0; from < imdbIDs.size(); from += FETCH_CHUNK_SIZE) {
+            find("imdbID in ?1", imdbIDs.subList(from, Math.min(from + FETCH_CHUNK_SIZE, imdbIDs.size())))
+                    .list()
+                    .forEach(Movie::markModified);
+        }
+    }
+
+    /**
+     * Retrieves the movies of an actor that follow the given IMDb ID in primary key order.
+     * <p>
+     * The query reads the actor's rows of the {@code movie_cast} index in IMDb ID order and joins
+     * each to its movie, so neither the actor nor its {@code movies} collection is loaded.
+     *
+     * @param actorId     ID of the actor
+     * @param afterImdbID IMDb ID of the last movie of the previous page, or null for the first page
+     * @param limit       Maximum number of movies to return
+     * @return Movies ordered by IMDb ID
+     */
+    public List<MovieSummaryDTO> findByActorAfter(Long actorId, String afterImdbID, int limit) {
+        return getEntityManager()
+                .createQuery("select new com.moviemanager.dto.MovieSummaryDTO(m.imdbID, m.title, m.releaseYear, m.description) "
+                        + "from Movie m join m.cast a where a.id = ?1 and m.imdbID > ?2 order by m.imdbID", MovieSummaryDTO.class)
+                .setParameter(1, actorId)
+                .setParameter(2, afterImdbID == null ? "" : afterImdbID)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Retrieves the IMDb IDs of all movies whose cast contains the given actor.
+     *
+     * @param actorId ID of the actor
+     * @return IMDb IDs of the actor's movies
+     */
+    public List<String> findIdsByActor(Long actorId) {
+        return getEntityManager()
+                .createQuery("select m.imdbID from Movie m join m.cast a where a.id = ?1", String.class)
+                .setParameter(1, actorId)
+                .getResultList();
+    }
+
+    /**
+     * Completes movie summaries with their pictures and cast using one query per collection.
+     * <p>
+     * The collections are loaded as scalar projections, so no entity or lazy proxy is created.
+     * They are fetched by separate queries because joining both at once would multiply the
+     * rows returned. Very large lists are split into chunks of {@value #FETCH_CHUNK_SIZE}
+     * movies to keep the IN lists bounded. Pictures are ordered by URL and the cast by actor ID,
+     * as in the entity.
+     *
+     * @param summaries Movie summaries in the order they should be returned
+     * @return Read models in the same order as the summaries
+     */
+    @WithSpan
+    public List<MovieReadDTO> toReadModels(List<MovieSummaryDTO> summaries) {
+        Map<String, List<String>> pictures = new HashMap<>();
+        Map<String, List<ActorReadDTO>> casts = new HashMap<>();
+        int pictureRows = 0;
+        int castRows = 0;
+
+        for (int from = 0; from < summaries.size(); from += FETCH_CHUNK_SIZE) {
+            List<String> ids = summaries.subList(from, Math.min(from + FETCH_CHUNK_SIZE, summaries.size()))
+                    .stream()
+                    .map(MovieSummaryDTO::imdbID)
+                    .collect(Collectors.toList());
+
+            List<Object[]> pictureResults = getEntityManager()
+                    .createQuery("select m.imdbID, p from Movie m join m.pictures p where m.imdbID in ?1 order by p", Object[].class)
+                    .setParameter(1, ids)
+                    .getResultList();
+            pictureResults.forEach(row -> pictures.computeIfAbsent((String) row[0], id -> new ArrayList<>())
+                    .add((String) row[1]));
+            pictureRows += pictureResults.size();
+
+            List<Object[]> castResults = getEntityManager()
+                    .createQuery("select m.imdbID, a.id, a.name, a.birthdate from Movie m join m.cast a where m.imdbID in ?1 order by a.id",
+                            Object[].class)
+                    .setParameter(1, ids)
+                    .getResultList();
+            castResults.forEach(row -> casts.computeIfAbsent((String) row[0], id -> new ArrayList<>())
+                    .add(new ActorReadDTO((Long) row[1], (String) row[2], (LocalDate) row[3])));
+            castRows += castResults.size();
+        }
+        Span.current()
+                .setAttribute("moviemanager.movies", summaries.size())
+                .setAttribute("moviemanager.picture_rows", pictureRows)
+                .setAttribute("moviemanager.cast_rows", castRows);
+
+        return summaries.stream()
+                .map(summary -> new MovieReadDTO(
+                        summary.imdbID(),
+                        summary.title(),
+                        summary.releaseYear(),
+                        summary.description(),
+                        pictures.getOrDefault(summary.imdbID(), List.of()),
+                        casts.getOrDefault(summary.imdbID(), List.of())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,49 @@
+package com.moviemanager.repository;
+
+import com.moviemanager.dto.MovieSnapshotDTO;
+import com.moviemanager.entity.MovieSnapshot;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for managing MovieSnapshot entities.
+ */
+@ApplicationScoped
+public class MovieSnapshotRepository implements PanacheRepositoryBase<MovieSnapshot, String> {
+
+    /**
+     * Retrieves the pre-rendered JSON of a movie without attaching the snapshot to the persistence context.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return UTF-8 encoded JSON of the movie and its version, or null if no snapshot exists
+     */
+    public MovieSnapshotDTO findSnapshot(String imdbID) {
+        return find("imdbID", imdbID).project(MovieSnapshotDTO.class).firstResult();
+    }
+
+    /**
+     * Retrieves the pre-rendered JSON of several movies together with which of them exist, with a single query.
+     *
+     * @param imdbIDs IMDb IDs of the movies
+     * @return Snapshots keyed by the IMDb ID of every existing movie, null for a movie without a snapshot
+     */
+    public Map<String, MovieSnapshotDTO> findSnapshotsOfMovies(List<String> imdbIDs) {
+        Map<String, MovieSnapshotDTO> snapshots = new HashMap<>();
+        if (imdbIDs.isEmpty()) {
+            return snapshots;
+        }
+        getEntityManager()
+                .createQuery("select m.imdbID, s.document, s.version, s.lastModified from Movie m "
+                        + "left join MovieSnapshot s on s.imdbID = m.imdbID where m.imdbID in ?1", Object[].class)
+                .setParameter(1, imdbIDs)
+                .getResultList()
+                .forEach(row -> snapshots.put((String) row[0], row[1] == null ? null
+                        : new MovieSnapshotDTO((byte[]) row[1], (Long) row[2], (Instant) row[3])));
+        return snapshots;
+    }
+}
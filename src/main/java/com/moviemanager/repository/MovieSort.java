@@ -0,0 +1,120 @@
+package com.moviemanager.repository;
+
+import com.moviemanager.dto.MovieSummaryDTO;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orders in which movie searches can be returned.
+ * <p>
+ * Every order ends with the IMDb ID as a tie-break, so movies with equal titles or years always
+ * come back in the same order and keyset pagination never skips or repeats a movie.
+ */
+public enum MovieSort {
+
+    TITLE("title", Sort.Direction.Ascending, "title", "imdbID"),
+    TITLE_DESC("-title", Sort.Direction.Descending, "title", "imdbID"),
+    YEAR("year", Sort.Direction.Ascending, "releaseYear", "title", "imdbID"),
+    YEAR_DESC("-year", Sort.Direction.Descending, "releaseYear", "title", "imdbID");
+
+    private final String parameter;
+    private final Sort.Direction direction;
+    private final List<String> keys;
+
+    MovieSort(String parameter, Sort.Direction direction, String... keys) {
+        this.parameter = parameter;
+        this.direction = direction;
+        this.keys = List.of(keys);
+    }
+
+    /**
+     * Resolves the value of a {@code sort} query parameter.
+     *
+     * @param parameter {@code title}, {@code year}, or either prefixed with {@code -} for descending order
+     * @return The matching order, or null if the value is unknown
+     */
+    public static MovieSort fromParameter(String parameter) {
+        for (MovieSort sort : values()) {
+            if (sort.parameter.equals(parameter)) {
+                return sort;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the sort key of a movie, to continue the next page after it.
+     *
+     * @param movie Last movie of a page
+     * @return Values of the sort columns as strings, in the order of the columns
+     */
+    public List<String> keyOf(MovieSummaryDTO movie) {
+        return keys.stream()
+                .map(key -> switch (key) {
+                    case "releaseYear" -> Integer.toString(movie.releaseYear());
+                    case "title" -> movie.title();
+                    default -> movie.imdbID();
+                })
+                .toList();
+    }
+
+    /**
+     * Converts a sort key produced by {@link #keyOf(MovieSummaryDTO)} back to column values.
+     *
+     * @param key Values of the sort columns as strings
+     * @return Values of the sort columns
+     * @throws IllegalArgumentException if the key does not belong to this order
+     */
+    List<Object> parseKey(List<String> key) {
+        if (key.size() != keys.size()) {
+            throw new IllegalArgumentException("Sort key does not match the order");
+        }
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            values.add("releaseYear".equals(keys.get(i)) ? Integer.valueOf(key.get(i)) : key.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Converts this order to a Panache sort.
+     * <p>
+     * Descending orders sort on an expression of the first column rather than the column itself.
+     * H2 2.3 loses the rows at inclusive range bounds when it scans an index backwards to produce
+     * the order, so this keeps the index for the range conditions and sorts the matches instead.
+     */
+    Sort toSort() {
+        String first = keys.get(0);
+        if (direction == Sort.Direction.Descending) {
+            first = "releaseYear".equals(first) ? first + " + 0" : "concat(" + first + ", '')";
+        }
+        Sort sort = Sort.by(first, direction).disableEscaping();
+        for (String key : keys.subList(1, keys.size())) {
+            sort = sort.and(key, direction);
+        }
+        return sort;
+    }
+
+    /**
+     * Builds the condition selecting the movies that follow the given sort key.
+     * <p>
+     * The leading bound on the first column is implied by the alternatives, but lets the
+     * database scan the index from the previous page's position instead of from its start.
+     */
+    String keysetCondition(List<Object> after, Parameters parameters) {
+        String operator = direction == Sort.Direction.Ascending ? ">" : "<";
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            StringBuilder alternative = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                alternative.append(keys.get(j)).append(" = :after").append(j).append(" and ");
+            }
+            alternatives.add(alternative.append(keys.get(i)).append(' ').append(operator).append(" :after").append(i).toString());
+            parameters.and("after" + i, after.get(i));
+        }
+        return keys.get(0) + " " + operator + "= :after0 and (" + String.join(" or ", alternatives) + ")";
+    }
+}
@@ -1,52 +1,215 @@
 package com.moviemanager.resource;
 
+import com.moviemanager.cache.MovieCache;
 import com.moviemanager.dto.ActorDTO;
+import com.moviemanager.dto.ActorReadDTO;
+import com.moviemanager.dto.MovieSummaryDTO;
+import com.moviemanager.dto.VersionDTO;
 import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
 import com.moviemanager.repository.ActorRepository;
+import com.moviemanager.repository.MovieRepository;
 import com.moviemanager.exception.ErrorResponse;
+import com.moviemanager.service.ChangeLogService;
+import com.moviemanager.service.MovieSnapshotService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriBuilder;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * RESTful resource for managing Actor entities.
+ * Endpoint methods run on virtual threads unless virtual threads are disabled in the configuration.
  */
 @Path("/actors")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ActorResource {
 
     @Inject
     ActorRepository actorRepository;
 
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    MovieCache movieCache;
+
+    @Inject
+    MovieSnapshotService movieSnapshotService;
+
+    @Inject
+    ChangeLogService changeLogService;
+
+    @Inject
+    Jsonb jsonb;
+
+    private static final int MAX_SIZE = 100; // Maximum allowed page size
+    private static final int DEFAULT_SIZE = 20; // Page size used when none is given
+    private static final int MAX_UNPAGED_SIZE = 1000; // Maximum number of actors in the unpaginated list
+
+    /**
+     * GET endpoint for retrieving actors.
+     * <p>
+     * Without parameters, the actors are returned as a plain list ordered by ID, capped at
+     * {@value #MAX_UNPAGED_SIZE} actors. When more actors exist, a {@code Link} header with
+     * {@code rel="next"} points to the page in cursor mode that follows the list. Retrieving
+     * every actor in one response is only possible by streaming them as NDJSON.
+     * <p>
+     * In cursor mode, actors are ordered by ID, or by name when searching by name prefix, and
+     * each page continues after the last actor of the previous one.
+     * <p>
+     * Example requests:
+     * - Retrieve the first page in cursor mode:
+     * GET /actors?after=&size=20
+     * - Search for actors whose name starts with "Mor":
+     * GET /actors?namePrefix=Mor&size=20
+     *
+     * @param after      Optional cursor returned as nextCursor by the previous page (empty for the first page)
+     * @param size       Optional number of actors per page (default 20, maximum 100)
+     * @param namePrefix Optional case-sensitive start of the name
+     * @return HTTP response with the actors or an error
+     */
     @GET
-    @Operation(summary = "Retrieve all actors")
+    @Operation(summary = "Retrieve actors with optional cursor pagination and name prefix search")
     @APIResponse(responseCode = "200", description = "Successfully retrieved actors")
-    public Response getAllActors() {
-        List<Actor> actors = actorRepository.listAll();
-        return Response.ok(actors).build();
+    @APIResponse(responseCode = "400", description = "Invalid pagination parameters")
+    public Response getAllActors(
+            @QueryParam("after") String after,
+            @QueryParam("size") Integer size,
+            @QueryParam("namePrefix") String namePrefix) {
+        if (after != null || size != null || namePrefix != null) {
+            return getActorsAfterCursor(after == null ? "" : after, size, namePrefix);
+        }
+
+        List<ActorReadDTO> actors = actorRepository.findAfter(null, MAX_UNPAGED_SIZE + 1);
+        if (actors.size() <= MAX_UNPAGED_SIZE) {
+            return Response.ok(actors).build();
+        }
+        actors = actors.subList(0, MAX_UNPAGED_SIZE);
+        String nextCursor = Cursors.encode(Long.toString(actors.get(MAX_UNPAGED_SIZE - 1).id()));
+        return Response.ok(actors)
+                .link(UriBuilder.fromResource(ActorResource.class)
+                        .queryParam("after", nextCursor)
+                        .queryParam("size", MAX_SIZE)
+                        .build(), "next")
+                .build();
+    }
+
+    @GET
+    @Produces(NdjsonOutput.APPLICATION_NDJSON + ";qs=0.5")
+    @Operation(summary = "Stream all actors as newline-delimited JSON")
+    @APIResponse(responseCode = "200", description = "Successfully streaming actors")
+    public Response streamActors() {
+        StreamingOutput output = NdjsonOutput.ofKeysetBatches(jsonb,
+                (Long after) -> actorRepository.findAfter(after, NdjsonOutput.BATCH_SIZE),
+                ActorReadDTO::id);
+        return Response.ok(output, NdjsonOutput.APPLICATION_NDJSON).build();
     }
 
     @GET
     @Path("/{id}")
     @Operation(summary = "Retrieve an actor by ID")
     @APIResponse(responseCode = "200", description = "Actor found")
+    @APIResponse(responseCode = "304", description = "Actor not modified")
     @APIResponse(responseCode = "404", description = "Actor not found")
-    public Response getActorById(@PathParam("id") Long id) {
-        Actor actor = actorRepository.findById(id);
+    public Response getActorById(@PathParam("id") Long id, @Context Request request) {
+        // The version is read first, so the ETag can only be older than the returned actor
+        VersionDTO version = actorRepository.findVersionById(id);
+        if (version == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Actor not found."))
+                    .build();
+        }
+        Response.ResponseBuilder notModified = Preconditions.evaluate(request, version);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        ActorReadDTO actor = actorRepository.findReadModelById(id);
         if (actor == null) {
+            // Deleted after its version was read
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(new ErrorResponse("Actor not found."))
                     .build();
         }
-        return Response.ok(actor).build();
+        return Preconditions.withVersion(Response.ok(actor), version).build();
+    }
+
+    /**
+     * GET endpoint for retrieving the movies an actor plays in, with cursor (keyset) pagination.
+     * <p>
+     * Movies are returned as summaries without pictures and cast, ordered by IMDb ID. Each page
+     * is a single query over the {@code movie_cast} index, so deep pages are as cheap as the first.
+     *
+     * @param id    ID of the actor
+     * @param after Cursor of the previous page (optional)
+     * @param size  Number of movies per page (optional, default 20, maximum 100)
+     * @return HTTP response with the page and the cursor of the next page, or an error
+     */
+    @GET
+    @Path("/{id}/movies")
+    @Operation(summary = "Retrieve the movies of an actor")
+    @APIResponse(responseCode = "200", description = "Successfully retrieved the actor's movies")
+    @APIResponse(responseCode = "400", description = "Invalid pagination parameters")
+    @APIResponse(responseCode = "404", description = "Actor not found")
+    public Response getActorMovies(
+            @PathParam("id") Long id,
+            @QueryParam("after") @DefaultValue("") String after,
+            @QueryParam("size") Integer size) {
+        if (size == null) {
+            size = DEFAULT_SIZE;
+        }
+        if (size < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Size parameter must be a positive integer."))
+                    .build();
+        }
+        size = Math.min(size, MAX_SIZE);
+
+        String afterImdbID;
+        try {
+            afterImdbID = Cursors.decode(after);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid cursor."))
+                    .build();
+        }
+
+        List<MovieSummaryDTO> movies = movieRepository.findByActorAfter(id, afterImdbID, size + 1);
+        // Only an empty page needs to tell an actor without movies from a missing one
+        if (movies.isEmpty() && actorRepository.count("id", id) == 0) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Actor not found."))
+                    .build();
+        }
+        String nextCursor = null;
+        if (movies.size() > size) {
+            movies = movies.subList(0, size);
+            nextCursor = Cursors.encode(movies.get(size - 1).imdbID());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", movies);
+        response.put("pageSize", size);
+        response.put("nextCursor", nextCursor);
+        return Response.ok(response).build();
     }
 
     @POST
@@ -59,6 +222,7 @@ public class ActorResource {
         actor.setName(actorDTO.getName());
         actor.setBirthdate(actorDTO.getBirthdate());
         actorRepository.persist(actor);
+        changeLogService.record(EntityType.ACTOR, actor.getId().toString(), ChangeType.CREATED);
         return Response.status(Response.Status.CREATED)
                 .entity(actor)
                 .build();
@@ -70,17 +234,29 @@ public class ActorResource {
     @Operation(summary = "Update an existing actor")
     @APIResponse(responseCode = "200", description = "Actor successfully updated")
     @APIResponse(responseCode = "404", description = "Actor not found")
-    public Response updateActor(@PathParam("id") Long id, @Valid ActorDTO actorDTO) {
+    @APIResponse(responseCode = "412", description = "Actor was modified since it was retrieved")
+    public Response updateActor(@PathParam("id") Long id, @Valid ActorDTO actorDTO, @Context Request request) {
         Actor actor = actorRepository.findById(id);
         if (actor == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity(new ErrorResponse("Actor not found."))
                     .build();
         }
+        Response.ResponseBuilder preconditionFailed = Preconditions.evaluate(request, versionOf(actor));
+        if (preconditionFailed != null) {
+            return preconditionFailed.entity(new ErrorResponse("Actor was modified since it was retrieved.")).build();
+        }
         actor.setName(actorDTO.getName());
         actor.setBirthdate(actorDTO.getBirthdate());
         actorRepository.persist(actor);
-        return Response.ok(actor).build();
+        // Movie representations embed their cast, so the actor's movies change as well
+        List<String> imdbIDs = movieRepository.findIdsByActor(id);
+        movieRepository.markModified(imdbIDs);
+        movieSnapshotService.refresh(imdbIDs);
+        imdbIDs.forEach(movieCache::invalidate);
+        changeLogService.record(EntityType.ACTOR, id.toString(), ChangeType.UPDATED);
+        changeLogService.recordAll(EntityType.MOVIE, imdbIDs, ChangeType.UPDATED);
+        return Preconditions.withVersion(Response.ok(actor), versionOf(actor)).build();
     }
 
     @DELETE
@@ -97,12 +273,86 @@ public class ActorResource {
                     .entity(new ErrorResponse("Actor not found."))
                     .build();
         }
-        if (actor.getMovies() != null && !actor.getMovies().isEmpty()) {
+        if (actorRepository.isReferenced(id)) {
             return Response.status(Response.Status.CONFLICT)
                     .entity(new ErrorResponse("Cannot delete actor associated with movies."))
                     .build();
         }
         actorRepository.delete(actor);
+        changeLogService.record(EntityType.ACTOR, id.toString(), ChangeType.DELETED);
         return Response.noContent().build();
     }
+
+    @DELETE
+    @Path("/unreferenced")
+    @Transactional
+    @Operation(summary = "Delete all actors that do not play in any movie")
+    @APIResponse(responseCode = "200", description = "Unreferenced actors successfully deleted")
+    public Response deleteUnreferencedActors() {
+        List<Long> deleted = actorRepository.deleteUnreferenced();
+        changeLogService.recordAll(EntityType.ACTOR, deleted.stream().map(String::valueOf).collect(Collectors.toList()), ChangeType.DELETED);
+        return Response.ok(Map.of("deleted", deleted.size())).build();
+    }
+
+    private static VersionDTO versionOf(Actor actor) {
+        return new VersionDTO(actor.getVersion(), actor.getLastModified());
+    }
+
+    /**
+     * Helper method to retrieve one page of actors in cursor (keyset) mode.
+     * <p>
+     * Cursors of name prefix searches hold the name and ID of the last actor, the other cursors
+     * only its ID, so a cursor cannot be reused across the two orders.
+     *
+     * @param after      Cursor of the previous page (empty for the first page)
+     * @param size       Requested page size, or null for the default
+     * @param namePrefix Start of the name, or null to list all actors by ID
+     * @return HTTP response with the page and the cursor of the next page
+     */
+    private Response getActorsAfterCursor(String after, Integer size, String namePrefix) {
+        if (size == null) {
+            size = DEFAULT_SIZE;
+        }
+        if (size < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Size parameter must be a positive integer."))
+                    .build();
+        }
+        size = Math.min(size, MAX_SIZE);
+
+        List<ActorReadDTO> actors;
+        try {
+            if (namePrefix == null) {
+                String afterId = Cursors.decode(after);
+                actors = actorRepository.findAfter(afterId == null ? null : Long.valueOf(afterId), size + 1);
+            } else {
+                List<String> afterKey = Cursors.decodeParts(after);
+                if (afterKey != null && afterKey.size() != 2) {
+                    throw new IllegalArgumentException("Cursor does not hold a name and an ID");
+                }
+                actors = afterKey == null
+                        ? actorRepository.findByNamePrefixAfter(namePrefix, null, null, size + 1)
+                        : actorRepository.findByNamePrefixAfter(namePrefix, afterKey.get(0), Long.valueOf(afterKey.get(1)), size + 1);
+            }
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid cursor."))
+                    .build();
+        }
+
+        String nextCursor = null;
+        if (actors.size() > size) {
+            actors = actors.subList(0, size);
+            ActorReadDTO last = actors.get(size - 1);
+            nextCursor = namePrefix == null
+                    ? Cursors.encode(Long.toString(last.id()))
+                    : Cursors.encode(List.of(last.name(), Long.toString(last.id())));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", actors);
+        response.put("pageSize", size);
+        response.put("nextCursor", nextCursor);
+        return Response.ok(response).build();
+    }
 }
@@ -0,0 +1,102 @@
+package com.moviemanager.resource;
+
+import com.moviemanager.dto.ChangeDTO;
+import com.moviemanager.exception.ErrorResponse;
+import com.moviemanager.service.ChangeLogService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RESTful resource for following the changes of movies and actors.
+ * Endpoint methods run on virtual threads unless virtual threads are disabled in the configuration,
+ * so a waiting long poll only parks its virtual thread.
+ */
+@Path("/changes")
+@Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class ChangeResource {
+
+    @Inject
+    ChangeLogService changeLogService;
+
+    private static final int MAX_SIZE = 1000; // Maximum allowed batch size
+    private static final int DEFAULT_SIZE = 100; // Batch size used when none is given
+    private static final int MAX_WAIT_SECONDS = 60; // Longest allowed long poll
+    private static final int DEFAULT_WAIT_SECONDS = 30; // Long poll used when none is given
+
+    /**
+     * GET endpoint for retrieving the changes committed after a sequence number, as a long poll.
+     * <p>
+     * Every create, update and delete of a movie or actor is logged with an increasing sequence
+     * number, the kind and ID of the entity and the kind of change. An update of an actor also
+     * logs an update of each of the actor's movies, because movies embed their cast. If changes
+     * after {@code since} exist, they are returned right away, otherwise the request waits up to
+     * {@code wait} seconds for the next commit. Consumers pass the returned {@code nextSince} to
+     * the next request to receive every change exactly once and in commit order.
+     * <p>
+     * Example requests:
+     * - Retrieve the whole log from the beginning:
+     * GET /changes?since=0
+     * - Wait up to 30 seconds for changes after sequence number 150:
+     * GET /changes?since=150&wait=30
+     *
+     * @param since Sequence number of the last change already seen (default 0)
+     * @param size  Optional maximum number of changes per response (default 100, maximum 1000)
+     * @param wait  Optional number of seconds to wait for a change (default 30, maximum 60, 0 to return at once)
+     * @return HTTP response with the changes and the sequence number to continue after, or an error
+     */
+    @GET
+    @Operation(summary = "Retrieve the changes of movies and actors after a sequence number, waiting for the next one")
+    @APIResponse(responseCode = "200", description = "Changes after the sequence number, empty if none was committed in time")
+    @APIResponse(responseCode = "400", description = "Invalid parameters")
+    public Response getChanges(
+            @QueryParam("since") @DefaultValue("0") long since,
+            @QueryParam("size") Integer size,
+            @QueryParam("wait") Integer wait) {
+        if (since < 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Since parameter must be a non-negative integer."))
+                    .build();
+        }
+        if (size == null) {
+            size = DEFAULT_SIZE;
+        }
+        if (size < 1) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Size parameter must be a positive integer."))
+                    .build();
+        }
+        size = Math.min(size, MAX_SIZE);
+        if (wait == null) {
+            wait = DEFAULT_WAIT_SECONDS;
+        }
+        if (wait < 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Wait parameter must be a non-negative integer."))
+                    .build();
+        }
+        wait = Math.min(wait, MAX_WAIT_SECONDS);
+
+        List<ChangeDTO> changes = changeLogService.awaitChanges(since, size, Duration.ofSeconds(wait));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", changes);
+        response.put("pageSize", size);
+        response.put("nextSince", changes.isEmpty() ? since : changes.get(changes.size() - 1).seq());
+        return Response.ok(response).build();
+    }
+}
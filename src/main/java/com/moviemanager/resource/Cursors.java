@@ -0,0 +1,67 @@
+package com.moviemanager.resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes and decodes the opaque cursors handed out by keyset-paginated endpoints.
+ * <p>
+ * A cursor wraps the sort key of the last item of a page. Clients must treat it as an
+ * opaque token and only pass it back unchanged to request the next page.
+ */
+final class Cursors {
+
+    private static final String SEPARATOR = "\u001f"; // Separates the parts of a composite sort key
+
+    private Cursors() {
+    }
+
+    /**
+     * Encodes a sort key into an opaque, URL-safe cursor.
+     *
+     * @param key Sort key of the last item on the page
+     * @return Opaque cursor string
+     */
+    static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode(String)}.
+     *
+     * @param cursor Opaque cursor string, empty for the first page
+     * @return The sort key, or null if the cursor is empty
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static String decode(String cursor) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes a composite sort key into an opaque, URL-safe cursor.
+     *
+     * @param parts Values of the sort columns of the last item on the page
+     * @return Opaque cursor string
+     */
+    static String encode(List<String> parts) {
+        return encode(String.join(SEPARATOR, parts));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode(List)}.
+     *
+     * @param cursor Opaque cursor string, empty for the first page
+     * @return The values of the sort columns, or null if the cursor is empty
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static List<String> decodeParts(String cursor) {
+        String key = decode(cursor);
+        return key == null ? null : Arrays.asList(key.split(SEPARATOR, -1));
+    }
+}
@@ -1,34 +1,70 @@
 package com.moviemanager.resource;
 
+import com.moviemanager.cache.MovieCache;
+import com.moviemanager.dto.CastChangeDTO;
+import com.moviemanager.dto.MovieBatchGetDTO;
 import com.moviemanager.dto.MovieCreateDTO;
+import com.moviemanager.dto.MovieFilterDTO;
+import com.moviemanager.dto.MovieReadDTO;
+import com.moviemanager.dto.MovieSnapshotDTO;
+import com.moviemanager.dto.MovieSummaryDTO;
 import com.moviemanager.dto.MovieUpdateDTO;
+import com.moviemanager.dto.VersionDTO;
 import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
 import com.moviemanager.entity.Movie;
 import com.moviemanager.exception.ErrorResponse;
 import com.moviemanager.repository.ActorRepository;
 import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.repository.MovieSort;
+import com.moviemanager.search.MovieSearchIndex;
+import com.moviemanager.service.ChangeLogService;
+import com.moviemanager.service.MovieImportService;
+import com.moviemanager.service.MovieSnapshotService;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.logging.Log;
 import io.quarkus.panache.common.Page;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
+import jakarta.json.JsonException;
+import jakarta.json.bind.Jsonb;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.hibernate.exception.ConstraintViolationException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * RESTful resource for managing Movie entities.
  * Provides endpoints for CRUD operations, pagination, and search functionality.
+ * Endpoint methods run on virtual threads unless virtual threads are disabled in the configuration.
  */
 @Path("/movies")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class MovieResource {
 
     @Inject
@@ -37,32 +73,70 @@ public class MovieResource {
     @Inject
     ActorRepository actorRepository;
 
+    @Inject
+    MovieSearchIndex movieSearchIndex;
+
+    @Inject
+    MovieCache movieCache;
+
+    @Inject
+    MovieImportService movieImportService;
+
+    @Inject
+    MovieSnapshotService movieSnapshotService;
+
+    @Inject
+    ChangeLogService changeLogService;
+
+    @Inject
+    Jsonb jsonb;
+
+    private static final int MAX_SIZE = 100; // Maximum allowed page size
+    private static final int DEFAULT_CURSOR_SIZE = 20; // Page size used in cursor mode when none is given
+    private static final int MAX_TEXT_HITS = 1000; // Full-text hits read per round, and ordered by a sorted search
+    private static final int MAX_BATCH_IDS = 500; // Maximum number of movies retrieved by one batch request
+
     /**
      * GET endpoint for retrieving movies.
      * <p>
-     * This endpoint supports both listing all movies and listing movies with pagination.
+     * This endpoint supports listing all movies, listing movies with offset pagination and
+     * listing movies with cursor (keyset) pagination. Cursor pagination seeks on the IMDb ID,
+     * so deep pages are as cheap as the first one. It skips the total count unless requested.
      * <p>
      * Example requests:
      * - Retrieve all movies (without pagination):
      * GET /movies
      * - Retrieve movies with pagination (second page, 20 movies per page):
      * GET /movies?page=2&size=20
+     * - Retrieve the first page in cursor mode:
+     * GET /movies?after=&size=20
+     * - Retrieve the next page in cursor mode using the cursor returned by the previous page:
+     * GET /movies?after=dHQwMTExMTYx&size=20
      *
-     * @param page Optional page number to display (starts from 1)
-     * @param size Optional number of movies per page
+     * @param page         Optional page number to display (starts from 1)
+     * @param size         Optional number of movies per page
+     * @param after        Optional cursor returned as nextCursor by the previous page (empty for the first page)
+     * @param includeTotal Whether cursor mode should also count all movies
      * @return HTTP response with the list of movies or an error
      */
     @GET
-    @Operation(summary = "Retrieve movies with optional pagination")
+    @Operation(summary = "Retrieve movies with optional offset or cursor pagination")
     @APIResponse(responseCode = "200", description = "Successfully retrieved movies")
     @APIResponse(responseCode = "400", description = "Invalid pagination parameters")
     public Response getAllMovies(
             @QueryParam("page") Integer page,
-            @QueryParam("size") Integer size) {
+            @QueryParam("size") Integer size,
+            @QueryParam("after") String after,
+            @QueryParam("includeTotal") boolean includeTotal) {
 
-        final int MAX_SIZE = 100; // Maximum allowed page size
+        List<MovieReadDTO> movies;
 
-        List<Movie> movies;
+        if (after != null) {
+            if (page != null) {
+                return buildErrorResponse(Response.Status.BAD_REQUEST, "The after and page parameters cannot be combined.");
+            }
+            return getMoviesAfterCursor(after, size, includeTotal);
+        }
 
         if (page != null && size != null) {
             // Validate pagination parameters
@@ -82,7 +156,8 @@ public class MovieResource {
             long totalPages = (totalMovies + size - 1) / size; // Calculate total pages
 
             // Fetch paginated results
-            movies = query.page(Page.of(page - 1, size)).list();
+            movies = movieRepository.toReadModels(
+                    query.page(Page.of(page - 1, size)).project(MovieSummaryDTO.class).list());
 
             // Create a response map with pagination metadata
             Map<String, Object> response = new HashMap<>();
@@ -95,7 +170,7 @@ public class MovieResource {
             return Response.ok(response).build(); // Return the response with pagination metadata
         } else if (page == null && size == null) {
             // Retrieve all movies without pagination
-            movies = movieRepository.listAll();
+            movies = movieRepository.toReadModels(movieRepository.findAll().project(MovieSummaryDTO.class).list());
 
             return Response.ok(movies).build(); // Return the list of all movies
         } else {
@@ -104,28 +179,87 @@ public class MovieResource {
         }
     }
 
+    /**
+     * GET endpoint for streaming all movies as newline-delimited JSON.
+     * <p>
+     * Selected when the client accepts application/x-ndjson. Unlike the unpaginated JSON
+     * list, the catalog is never held in memory as a whole.
+     * <p>
+     * Example request:
+     * curl -H "Accept: application/x-ndjson" http://localhost:8080/movies
+     *
+     * @return HTTP response streaming one movie per line
+     */
+    @GET
+    @Produces(NdjsonOutput.APPLICATION_NDJSON + ";qs=0.5")
+    @Operation(summary = "Stream all movies as newline-delimited JSON")
+    @APIResponse(responseCode = "200", description = "Successfully streaming movies")
+    public Response streamMovies() {
+        StreamingOutput output = NdjsonOutput.ofKeysetBatches(jsonb,
+                (String after) -> movieRepository.toReadModels(movieRepository.findAfter(after, NdjsonOutput.BATCH_SIZE)),
+                MovieReadDTO::imdbID);
+        return Response.ok(output, NdjsonOutput.APPLICATION_NDJSON).build();
+    }
+
     /**
      * GET endpoint for retrieving a movie by its IMDb ID.
      * <p>
+     * The serialized movie is served from an in-memory cache that the write paths invalidate.
+     * Responses carry a strong ETag and a Last-Modified header derived from the movie's version.
+     * A request whose If-None-Match or If-Modified-Since still matches gets 304 Not Modified,
+     * answered from a version-only lookup when the movie is not cached.
+     * <p>
      * Example request:
      * - Retrieve a movie with IMDb ID "tt0111161":
      * GET /movies/tt0111161
      *
-     * @param imdbID IMDb ID of the movie to retrieve
-     * @return HTTP response with movie details or an error
+     * @param imdbID  IMDb ID of the movie to retrieve
+     * @param request Request whose preconditions are evaluated
+     * @param headers Headers of the request
+     * @return HTTP response with movie details, 304 Not Modified or an error
      */
     @GET
     @Path("/{imdbID}")
     @Operation(summary = "Retrieve a movie by IMDb ID")
     @APIResponse(responseCode = "200", description = "Movie found")
+    @APIResponse(responseCode = "304", description = "Movie not modified")
     @APIResponse(responseCode = "404", description = "Movie not found")
-    public Response getMovieById(@PathParam("imdbID") String imdbID) {
-        Movie movie = findMovieOrFail(imdbID);
-        return Response.ok(movie).build(); // Return response with status 200 OK and movie details
+    public Response getMovieById(@PathParam("imdbID") String imdbID, @Context Request request, @Context HttpHeaders headers) {
+        MovieSnapshotDTO movie = movieCache.getIfPresent(imdbID);
+        if (movie == null && Preconditions.isConditional(headers)) {
+            VersionDTO version = movieRepository.findVersionById(imdbID);
+            Response.ResponseBuilder notModified = version == null ? null : Preconditions.evaluate(request, version);
+            if (notModified != null) {
+                return notModified.build();
+            }
+        }
+        if (movie == null) {
+            movie = movieCache.get(imdbID);
+        }
+        if (movie == null) {
+            return buildErrorResponse(Response.Status.NOT_FOUND, "Movie not found.");
+        }
+        Response.ResponseBuilder notModified = Preconditions.evaluate(request, movie.toVersion());
+        if (notModified != null) {
+            return notModified.build();
+        }
+        // Return response with status 200 OK and movie details
+        return Preconditions.withVersion(Response.ok(movie.document(), MediaType.APPLICATION_JSON_TYPE), movie.toVersion())
+                .build();
     }
 
     /**
      * POST endpoint for creating a new movie.
+     * <p>
+     * The movie is inserted right away instead of being looked up first, and its primary key
+     * rejects an existing IMDb ID. Besides saving a round trip, this leaves no window between a
+     * check and the insert in which a concurrent request could create the same movie. The cast
+     * is resolved from the second-level cache where possible, and the snapshot is rendered from
+     * the new entity, so a movie with cached actors is created with inserts only. An existing
+     * IMDb ID is reported as a conflict even when some of the actors do not exist.
+     *
+     * @param movieDTO Movie to create
+     * @return HTTP response with the created movie, or an error
      */
     @POST
     @Transactional
@@ -134,12 +268,12 @@ public class MovieResource {
     @APIResponse(responseCode = "400", description = "Invalid input or actors not found")
     @APIResponse(responseCode = "409", description = "Movie with this IMDb ID already exists")
     public Response createMovie(@Valid MovieCreateDTO movieDTO) {
-        if (movieRepository.findById(movieDTO.getImdbID()) != null) {
-            return buildErrorResponse(Response.Status.CONFLICT, "Movie with this IMDb ID already exists.");
-        }
-
         List<Actor> actors = validateAndFetchActors(movieDTO.getCast());
         if (actors == null) {
+            // Nothing is inserted, so look for a conflict, which takes precedence as it does otherwise
+            if (movieRepository.count("imdbID", movieDTO.getImdbID()) > 0) {
+                return buildErrorResponse(Response.Status.CONFLICT, "Movie with this IMDb ID already exists.");
+            }
             return buildErrorResponse(Response.Status.BAD_REQUEST, "One or more actors not found.");
         }
 
@@ -151,15 +285,117 @@ public class MovieResource {
                 movieDTO.getPictures(),
                 actors
         );
-        movieRepository.persist(movie);
+        try {
+            movieRepository.persistAndFlush(movie);
+        } catch (PersistenceException e) {
+            // The failed insert marked the transaction for rollback, which happens when returning
+            if (violatedConstraint(e) == ConstraintViolationException.ConstraintKind.UNIQUE) {
+                Log.debugf("Movie %s already exists", movieDTO.getImdbID());
+                return buildErrorResponse(Response.Status.CONFLICT, "Movie with this IMDb ID already exists.");
+            }
+            throw e;
+        }
+        MovieSnapshotDTO snapshot = movieSnapshotService.add(movie);
+        changeLogService.record(EntityType.MOVIE, movie.getImdbID(), ChangeType.CREATED);
+        movieCache.invalidate(movie.getImdbID()); // Drop a cached "not found"
+
+        // The snapshot is the same document GET returns, with pictures and cast in the same order
+        return Preconditions.withVersion(
+                Response.status(Response.Status.CREATED).entity(snapshot.document()).type(MediaType.APPLICATION_JSON_TYPE),
+                snapshot.toVersion()).build();
+    }
 
-        return Response.status(Response.Status.CREATED)
-                .entity(movie)
-                .build();
+    /**
+     * POST endpoint for retrieving many movies by their IMDb IDs with a single request.
+     * <p>
+     * Movies already in the cache, including unknown IDs cached as not found, are served from it.
+     * The snapshots of the others are read with a single query instead of one lookup per movie
+     * and put into the cache. The stored documents are written to the response as they are,
+     * without being parsed again. The movies are returned in the order of the requested IDs,
+     * with null in place of every movie that does not exist, and the IDs of those movies are
+     * listed separately.
+     * <p>
+     * Example request:
+     * curl -X POST -H "Content-Type: application/json" -d '{"ids": ["tt0111161", "tt0068646"]}' http://localhost:8080/movies/batch-get
+     *
+     * @param batch IMDb IDs of the movies to retrieve
+     * @return HTTP response with the movies in request order and the IDs that were not found, or an error
+     */
+    @POST
+    @Path("/batch-get")
+    @Operation(summary = "Retrieve many movies by IMDb ID")
+    @APIResponse(responseCode = "200", description = "Movies in request order, null for every movie not found")
+    @APIResponse(responseCode = "400", description = "Missing, empty or too many IMDb IDs")
+    public Response getMoviesByIds(MovieBatchGetDTO batch) {
+        if (batch == null || batch.ids() == null || batch.ids().isEmpty()) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Body must list the IMDb IDs of the movies.");
+        }
+        if (batch.ids().stream().anyMatch(MovieResource::isBlank)) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "IMDb IDs must not be empty.");
+        }
+        if (batch.ids().size() > MAX_BATCH_IDS) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST,
+                    "At most " + MAX_BATCH_IDS + " movies can be retrieved at once.");
+        }
+
+        Map<String, MovieSnapshotDTO> movies = movieCache.getAll(batch.ids().stream().distinct().toList());
+
+        List<String> missing = batch.ids().stream()
+                .filter(imdbID -> !movies.containsKey(imdbID))
+                .distinct()
+                .collect(Collectors.toList());
+        StreamingOutput output = (OutputStream out) -> {
+            out.write("{\"items\":[".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < batch.ids().size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                MovieSnapshotDTO movie = movies.get(batch.ids().get(i));
+                out.write(movie == null ? "null".getBytes(StandardCharsets.UTF_8) : movie.document());
+            }
+            out.write(("],\"missing\":" + jsonb.toJson(missing) + "}").getBytes(StandardCharsets.UTF_8));
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * POST endpoint for importing many movies at once.
+     * <p>
+     * The body is either a JSON array of movies or newline-delimited JSON with one movie per
+     * line, each in the format accepted by POST /movies. It is read as a stream and stored in
+     * chunks, each in its own transaction. Invalid rows are reported in the response and do
+     * not prevent the other rows from being imported. A syntax error within a JSON array is
+     * reported as a rejected row as well, and ends the import after the rows before it.
+     * <p>
+     * Example request:
+     * curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @movies.ndjson http://localhost:8080/movies/bulk
+     *
+     * @param contentType Media type of the body
+     * @param body        Movies to import
+     * @return HTTP response with the number of imported movies and the rejected rows
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NdjsonOutput.APPLICATION_NDJSON})
+    @Operation(summary = "Import many movies from a JSON array or newline-delimited JSON")
+    @APIResponse(responseCode = "200", description = "Import finished, rejected rows are listed in the response")
+    @APIResponse(responseCode = "400", description = "Body does not start a JSON array and is not newline-delimited JSON")
+    public Response importMovies(@HeaderParam(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body)
+            throws IOException {
+        boolean ndjson = contentType != null && contentType.isCompatible(MediaType.valueOf(NdjsonOutput.APPLICATION_NDJSON));
+        try {
+            return Response.ok(movieImportService.importMovies(body, ndjson)).build();
+        } catch (JsonException e) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Body must be a JSON array of movies or newline-delimited JSON.");
+        }
     }
 
     /**
      * PUT endpoint for updating an existing movie's details.
+     * <p>
+     * An If-Match header makes the update conditional on the movie still having the given ETag,
+     * so concurrent clients cannot overwrite each other's changes unnoticed. Pictures and cast
+     * are changed in place, so only the rows of added and removed entries are written.
      */
     @PUT
     @Path("/{imdbID}")
@@ -168,9 +404,15 @@ public class MovieResource {
     @APIResponse(responseCode = "200", description = "Movie successfully updated")
     @APIResponse(responseCode = "400", description = "Invalid input or actors not found")
     @APIResponse(responseCode = "404", description = "Movie not found")
-    public Response updateMovie(@PathParam("imdbID") String imdbID, @Valid MovieUpdateDTO movieDTO) {
+    @APIResponse(responseCode = "412", description = "Movie was modified since it was retrieved")
+    public Response updateMovie(@PathParam("imdbID") String imdbID, @Valid MovieUpdateDTO movieDTO,
+                                @Context Request request) {
         // Find the existing movie by IMDb ID
         Movie existingMovie = findMovieOrFail(imdbID);
+        Response.ResponseBuilder preconditionFailed = Preconditions.evaluate(request, versionOf(existingMovie));
+        if (preconditionFailed != null) {
+            return preconditionFailed.entity(new ErrorResponse("Movie was modified since it was retrieved.")).build();
+        }
 
         // Validate and fetch actors by their IDs
         List<Actor> actors = validateAndFetchActors(movieDTO.getCast());
@@ -182,13 +424,74 @@ public class MovieResource {
         existingMovie.setTitle(movieDTO.getTitle());
         existingMovie.setReleaseYear(movieDTO.getReleaseYear());
         existingMovie.setDescription(movieDTO.getDescription());
-        existingMovie.setPictures(movieDTO.getPictures());
-        existingMovie.setCast(actors);
+        existingMovie.replacePictures(movieDTO.getPictures());
+        existingMovie.replaceCast(actors);
 
         // Persist the updated movie
         movieRepository.persist(existingMovie);
+        MovieSnapshotDTO snapshot = movieSnapshotService.refresh(List.of(imdbID)).get(imdbID);
+        changeLogService.record(EntityType.MOVIE, imdbID, ChangeType.UPDATED);
+        movieCache.invalidate(imdbID);
+
+        // The refreshed snapshot is the same document GET returns, with pictures and cast in the same order
+        return Preconditions.withVersion(Response.ok(snapshot.document(), MediaType.APPLICATION_JSON_TYPE),
+                snapshot.toVersion()).build();
+    }
+
+    /**
+     * PATCH endpoint for adding actors to and removing actors from the cast of a movie.
+     * <p>
+     * Only the {@code movie_cast} rows of the added and removed actors are written, so the cost
+     * of a change depends on its size rather than on the size of the cast. Adding an actor who
+     * already plays in the movie, or removing one who does not, changes nothing. An If-Match
+     * header makes the change conditional, as for PUT.
+     * <p>
+     * Example request:
+     * PATCH /movies/tt0111161/cast
+     * {"add": [3], "remove": [2]}
+     *
+     * @param imdbID IMDb ID of the movie
+     * @param change IDs of the actors to add and to remove
+     * @return HTTP response with the updated movie, or an error
+     */
+    @PATCH
+    @Path("/{imdbID}/cast")
+    @Transactional
+    @Operation(summary = "Add actors to and remove actors from the cast of a movie")
+    @APIResponse(responseCode = "200", description = "Cast successfully updated")
+    @APIResponse(responseCode = "400", description = "Invalid change or actors not found")
+    @APIResponse(responseCode = "404", description = "Movie not found")
+    @APIResponse(responseCode = "412", description = "Movie was modified since it was retrieved")
+    public Response updateCast(@PathParam("imdbID") String imdbID, CastChangeDTO change, @Context Request request) {
+        if (change == null) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Body must list the actors to add or remove.");
+        }
+        Set<Long> added = change.add() == null ? Set.of() : new HashSet<>(change.add());
+        Set<Long> removed = change.remove() == null ? Set.of() : new HashSet<>(change.remove());
+        if (added.stream().anyMatch(removed::contains)) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "An actor cannot be both added and removed.");
+        }
+
+        Movie movie = findMovieOrFail(imdbID);
+        Response.ResponseBuilder preconditionFailed = Preconditions.evaluate(request, versionOf(movie));
+        if (preconditionFailed != null) {
+            return preconditionFailed.entity(new ErrorResponse("Movie was modified since it was retrieved.")).build();
+        }
+
+        List<Actor> actors = validateAndFetchActors(List.copyOf(added));
+        if (actors == null) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "One or more actors not found.");
+        }
 
-        return Response.ok(existingMovie).build();
+        movie.getCast().removeIf(actor -> removed.contains(actor.getId()));
+        movie.getCast().addAll(actors);
+        MovieSnapshotDTO snapshot = movieSnapshotService.refresh(List.of(imdbID)).get(imdbID);
+        changeLogService.record(EntityType.MOVIE, imdbID, ChangeType.UPDATED);
+        movieCache.invalidate(imdbID);
+
+        // The refreshed snapshot is the same document GET returns, and the pictures stay unloaded
+        return Preconditions.withVersion(Response.ok(snapshot.document(), MediaType.APPLICATION_JSON_TYPE),
+                snapshot.toVersion()).build();
     }
 
     /**
@@ -212,48 +515,217 @@ public class MovieResource {
 
         // Delete the movie
         movieRepository.delete(movie);
+        movieSnapshotService.remove(imdbID);
+        changeLogService.record(EntityType.MOVIE, imdbID, ChangeType.DELETED);
+        movieCache.invalidate(imdbID);
 
         return Response.noContent().build(); // Return response with status 204 No Content
     }
 
     /**
-     * GET endpoint for searching movies by title or release year.
+     * GET endpoint for searching movies with any combination of filters, one page at a time.
+     * <p>
+     * Title and free-text terms are matched by the full-text index: whole words, word prefixes
+     * and words with small typos match, and results are ordered by relevance unless a sort order
+     * is given. The index also applies release year ranges, while actors and title prefixes are
+     * filtered by the database, backed by indexes on the release year and title. In relevance
+     * order, every match can be reached page by page. Sorted otherwise, only the best
+     * {@value #MAX_TEXT_HITS} text hits are ordered, and the response is marked as truncated when
+     * there are more. Without text terms, results are ordered by title unless another order is
+     * given, and every order ends with the IMDb ID as a tie-break.
      * <p>
      * Example requests:
-     * - Search for movies with the title "Inception":
-     * GET /movies/search?title=Inception
-     * - Search for movies released in 2020:
-     * GET /movies/search?year=2020
-     * - Search for movies with the title "Inception" and released in 2020:
-     * GET /movies/search?title=Inception&year=2020
-     * - Retrieve all movies without any search filters:
-     * GET /movies/search
+     * - Search for movies mentioning "dream" in the title or description:
+     * GET /movies/search?q=dream
+     * - Search for movies released in the nineties featuring both actors 1 and 2, newest first:
+     * GET /movies/search?yearFrom=1990&yearTo=1999&actor=1&actor=2&sort=-year
+     * - Search for movies whose title starts with "The", and then the next page:
+     * GET /movies/search?titlePrefix=The&size=20
+     * GET /movies/search?titlePrefix=The&size=20&after=VGhlIEdvZGZhdGhlch90dDAwNjg2NDY
      *
-     * @param title Title of the movie to search for (optional)
-     * @param year  Release year of the movie to search for (optional)
-     * @return HTTP response with the list of found movies
+     * @param params Filters, sort order and page of the search
+     * @return HTTP response with the page and the cursor of the next page, or an error
      */
     @GET
     @Path("/search")
-    @Operation(summary = "Search movies by title or release year")
+    @Operation(summary = "Search movies by text, release year, actors and title prefix")
     @APIResponse(responseCode = "200", description = "Successfully retrieved search results")
-    public Response searchMovies(@QueryParam("title") String title, @QueryParam("year") Integer year) {
-        List<Movie> movies;
-        // Search logic based on the presence of parameters
-        if (title != null && year != null) {
-            movies = movieRepository.find("title like ?1 and releaseYear = ?2", "%" + title + "%", year).list();
-        } else if (title != null) {
-            movies = movieRepository.find("title like ?1", "%" + title + "%").list();
-        } else if (year != null) {
-            movies = movieRepository.find("releaseYear", year).list();
-        } else {
-            movies = movieRepository.listAll(); // If no parameters, return all movies
+    @APIResponse(responseCode = "400", description = "Invalid search parameters")
+    public Response searchMovies(@BeanParam MovieSearchParams params) {
+        int size = params.size == null ? DEFAULT_CURSOR_SIZE : params.size;
+        if (size < 1) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Size parameter must be a positive integer.");
         }
-        return Response.ok(movies).build(); // Return response with status 200 OK and list of movies
+        size = Math.min(size, MAX_SIZE);
+
+        MovieSort sort = null;
+        if (params.sort != null) {
+            sort = MovieSort.fromParameter(params.sort);
+            if (sort == null) {
+                return buildErrorResponse(Response.Status.BAD_REQUEST, "Sort parameter must be one of title, -title, year and -year.");
+            }
+        }
+
+        String title = isBlank(params.title) ? null : params.title;
+        String text = isBlank(params.q) ? null : params.q;
+        Integer yearFrom = params.year != null && (params.yearFrom == null || params.year > params.yearFrom) ? params.year : params.yearFrom;
+        Integer yearTo = params.year != null && (params.yearTo == null || params.year < params.yearTo) ? params.year : params.yearTo;
+        boolean textSearch = title != null || text != null;
+        if (!textSearch && sort == null) {
+            sort = MovieSort.TITLE;
+        }
+
+        List<MovieSummaryDTO> summaries;
+        String nextCursor = null;
+        boolean truncated = false;
+        try {
+            if (textSearch && sort == null) {
+                // Relevance order: the cursor holds the position in the ranked hits
+                String position = Cursors.decode(params.after);
+                int offset = position == null ? 0 : Integer.parseInt(position);
+                if (offset < 0) {
+                    throw new IllegalArgumentException("Negative search position");
+                }
+                summaries = new ArrayList<>();
+                nextCursor = searchByRelevance(params, title, text, yearFrom, yearTo, offset, size, summaries);
+            } else {
+                List<String> hits = null;
+                if (textSearch) {
+                    // The database orders the best text hits, so a capped search says so
+                    hits = movieSearchIndex.search(title, text, yearFrom, yearTo, 0, MAX_TEXT_HITS + 1);
+                    truncated = hits.size() > MAX_TEXT_HITS;
+                    hits = hits.subList(0, Math.min(hits.size(), MAX_TEXT_HITS));
+                }
+                if (hits != null && hits.isEmpty()) {
+                    summaries = List.of();
+                } else {
+                    summaries = movieRepository.search(filterOf(params, yearFrom, yearTo, hits), sort,
+                            Cursors.decodeParts(params.after), size + 1);
+                    if (summaries.size() > size) {
+                        summaries = summaries.subList(0, size);
+                        nextCursor = Cursors.encode(sort.keyOf(summaries.get(size - 1)));
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Invalid cursor.");
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", movieRepository.toReadModels(summaries));
+        response.put("pageSize", size);
+        response.put("nextCursor", nextCursor);
+        response.put("truncated", truncated);
+        return Response.ok(response).build();
     }
 
     // -------------------- Helper Methods --------------------
 
+    /**
+     * Helper method to fill one page of a text search in relevance order.
+     * <p>
+     * The year range is applied by the index, while the actors and the title prefix are
+     * filtered by the database. Hits are therefore read in rounds, starting with one more than
+     * the page holds and doubling up to {@value #MAX_TEXT_HITS}, until the page and one more
+     * match are found or the hits run out. A page without database filters thus costs a single
+     * small query, and selective filters still reach matches ranked far down.
+     *
+     * @param offset  Position in the ranked hits to continue from
+     * @param size    Page size
+     * @param matches Receives the movies of the page in relevance order
+     * @return Cursor of the next page, or null on the last page
+     */
+    private String searchByRelevance(MovieSearchParams params, String title, String text, Integer yearFrom, Integer yearTo,
+                                     int offset, int size, List<MovieSummaryDTO> matches) {
+        int position = offset;
+        int round = size + 1;
+        int lastPosition = -1;
+        while (true) {
+            List<String> hits = movieSearchIndex.search(title, text, yearFrom, yearTo, position, round);
+            if (hits.isEmpty()) {
+                return null;
+            }
+            // The database also drops hits of movies changed or deleted since they were indexed
+            Map<String, MovieSummaryDTO> found = movieRepository.search(filterOf(params, yearFrom, yearTo, hits), null, null, hits.size())
+                    .stream()
+                    .collect(Collectors.toMap(MovieSummaryDTO::imdbID, Function.identity()));
+            for (int i = 0; i < hits.size(); i++) {
+                MovieSummaryDTO movie = found.get(hits.get(i));
+                if (movie == null) {
+                    continue;
+                }
+                if (matches.size() == size) {
+                    return Cursors.encode(Integer.toString(lastPosition + 1));
+                }
+                matches.add(movie);
+                lastPosition = position + i;
+            }
+            if (hits.size() < round) {
+                return null;
+            }
+            position += hits.size();
+            round = Math.min(round * 2, MAX_TEXT_HITS);
+        }
+    }
+
+    /**
+     * Helper method to build the database filters of a search.
+     */
+    private static MovieFilterDTO filterOf(MovieSearchParams params, Integer yearFrom, Integer yearTo, List<String> imdbIDs) {
+        return new MovieFilterDTO(
+                yearFrom,
+                yearTo,
+                params.actors == null ? Set.of() : new HashSet<>(params.actors),
+                isBlank(params.titlePrefix) ? null : params.titlePrefix,
+                imdbIDs);
+    }
+
+    /**
+     * Helper method to retrieve one page of movies in cursor (keyset) mode.
+     * <p>
+     * One extra row is fetched to find out whether another page follows, so the last page
+     * never hands out a cursor that would lead to an empty page.
+     *
+     * @param after        Cursor of the previous page (empty for the first page)
+     * @param size         Requested page size, or null for the default
+     * @param includeTotal Whether to count all movies
+     * @return HTTP response with the page and the cursor of the next page
+     */
+    private Response getMoviesAfterCursor(String after, Integer size, boolean includeTotal) {
+        if (size == null) {
+            size = DEFAULT_CURSOR_SIZE;
+        }
+        if (size < 1) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Size parameter must be a positive integer.");
+        }
+        if (size > MAX_SIZE) {
+            size = MAX_SIZE;
+        }
+
+        String afterImdbID;
+        try {
+            afterImdbID = Cursors.decode(after);
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(Response.Status.BAD_REQUEST, "Invalid cursor.");
+        }
+
+        List<MovieSummaryDTO> summaries = movieRepository.findAfter(afterImdbID, size + 1);
+        String nextCursor = null;
+        if (summaries.size() > size) {
+            summaries = summaries.subList(0, size);
+            nextCursor = Cursors.encode(summaries.get(size - 1).imdbID());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", movieRepository.toReadModels(summaries));
+        response.put("pageSize", size);
+        response.put("nextCursor", nextCursor);
+        if (includeTotal) {
+            response.put("totalItems", movieRepository.count());
+        }
+        return Response.ok(response).build();
+    }
+
     /**
      * Helper method to retrieve a movie by IMDb ID or throw a 404 error if not found.
      *
@@ -283,14 +755,37 @@ public class MovieResource {
         if (actorIds == null || actorIds.isEmpty()) {
             return List.of(); // Return an empty list if no actors are provided
         }
-        // Fetch actors by their IDs
-        List<Actor> actors = actorRepository.find("id in ?1", actorIds).list();
+        // Fetch actors by their IDs, from the second-level cache where possible
+        List<Actor> actors = actorRepository.findByIds(actorIds);
         if (actors.size() != actorIds.size()) {
             return null; // If the number of found actors does not match the number of IDs provided, return null
         }
         return actors; // Return the list of found actors
     }
 
+    /**
+     * Helper method to find out which kind of database constraint made a write fail.
+     *
+     * @param exception Exception thrown by the write
+     * @return Kind of the violated constraint, or null if no constraint was violated
+     */
+    private static ConstraintViolationException.ConstraintKind violatedConstraint(PersistenceException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getKind();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static VersionDTO versionOf(Movie movie) {
+        return new VersionDTO(movie.getVersion(), movie.getLastModified());
+    }
+
     /**
      * Helper method to build a Response with an error message.
      *
@@ -0,0 +1,43 @@
+package com.moviemanager.resource;
+
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.QueryParam;
+
+import java.util.List;
+
+/**
+ * Query parameters of GET /movies/search. Every parameter is optional, and all given filters must match.
+ */
+public class MovieSearchParams {
+
+    @QueryParam("title")
+    String title; // Terms to match against the title, using the full-text index
+
+    @QueryParam("q")
+    String q; // Terms to match against the title or the description, using the full-text index
+
+    @QueryParam("year")
+    Integer year; // Exact release year
+
+    @QueryParam("yearFrom")
+    Integer yearFrom; // Earliest release year, inclusive
+
+    @QueryParam("yearTo")
+    Integer yearTo; // Latest release year, inclusive
+
+    @QueryParam("actor")
+    List<Long> actors; // Actors that must all be part of the cast, repeatable
+
+    @QueryParam("titlePrefix")
+    String titlePrefix; // Case-sensitive start of the title
+
+    @QueryParam("sort")
+    String sort; // title, year, -title or -year; relevance for text searches when omitted
+
+    @QueryParam("after")
+    @DefaultValue("")
+    String after; // Cursor returned as nextCursor by the previous page
+
+    @QueryParam("size")
+    Integer size; // Number of movies per page
+}
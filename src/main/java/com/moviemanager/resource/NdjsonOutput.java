@@ -0,0 +1,56 @@
+package com.moviemanager.resource;
+
+import jakarta.json.bind.Jsonb;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streams a whole table as newline-delimited JSON, one object per line.
+ * <p>
+ * Rows are read in keyset batches and every batch is written and flushed before the next
+ * one is read, so memory use does not depend on the size of the table and the first bytes
+ * reach the client as soon as the first batch is loaded. The batches are read as
+ * projections, so they never accumulate in the persistence context, and no connection or
+ * transaction is held while waiting for a slow client.
+ */
+final class NdjsonOutput {
+
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    static final int BATCH_SIZE = 500; // Rows read per query
+
+    private NdjsonOutput() {
+    }
+
+    /**
+     * Creates a streaming output that pages through rows by key.
+     *
+     * @param jsonb      JSON-B instance used to serialize each row
+     * @param fetchAfter Loads up to {@value #BATCH_SIZE} rows following the given key (null for the first batch)
+     * @param keyOf      Extracts the sort key from a row
+     * @param <T>        Row type
+     * @param <K>        Sort key type
+     * @return Streaming output writing one JSON object per line
+     */
+    static <T, K> StreamingOutput ofKeysetBatches(Jsonb jsonb, Function<K, List<T>> fetchAfter, Function<T, K> keyOf) {
+        return (OutputStream output) -> {
+            K after = null;
+            List<T> batch;
+            do {
+                batch = fetchAfter.apply(after);
+                for (T row : batch) {
+                    output.write(jsonb.toJson(row).getBytes(StandardCharsets.UTF_8));
+                    output.write('\n');
+                }
+                output.flush();
+                if (!batch.isEmpty()) {
+                    after = keyOf.apply(batch.get(batch.size() - 1));
+                }
+            } while (batch.size() == BATCH_SIZE);
+        };
+    }
+}
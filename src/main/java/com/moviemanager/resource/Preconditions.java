@@ -0,0 +1,63 @@
+package com.moviemanager.resource;
+
+import com.moviemanager.dto.VersionDTO;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Date;
+
+/**
+ * Evaluates conditional request headers against the version of an entity.
+ * <p>
+ * Entity tags are strong and combine the version column with the last modification time, so
+ * an entity that is deleted and created again under the same ID never matches an old tag.
+ */
+final class Preconditions {
+
+    private Preconditions() {
+    }
+
+    /**
+     * Tells whether a GET request carries headers that may turn it into a 304 Not Modified.
+     *
+     * @param headers Headers of the request
+     * @return True if If-None-Match or If-Modified-Since is present
+     */
+    static boolean isConditional(HttpHeaders headers) {
+        return headers.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null
+                || headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Evaluates If-Match, If-None-Match, If-Modified-Since and If-Unmodified-Since.
+     *
+     * @param request Request to evaluate
+     * @param version Current version of the entity
+     * @return A 304 Not Modified or 412 Precondition Failed response, or null if the request should proceed
+     */
+    static Response.ResponseBuilder evaluate(Request request, VersionDTO version) {
+        Response.ResponseBuilder failed = request.evaluatePreconditions(lastModified(version), entityTag(version));
+        return failed == null ? null : failed.tag(entityTag(version));
+    }
+
+    /**
+     * Adds the ETag and Last-Modified headers of an entity to a response.
+     *
+     * @param response Response to complete
+     * @param version  Current version of the entity
+     * @return The same response builder
+     */
+    static Response.ResponseBuilder withVersion(Response.ResponseBuilder response, VersionDTO version) {
+        return response.tag(entityTag(version)).lastModified(lastModified(version));
+    }
+
+    private static EntityTag entityTag(VersionDTO version) {
+        return new EntityTag(version.version() + "-" + version.lastModified().toEpochMilli());
+    }
+
+    private static Date lastModified(VersionDTO version) {
+        return Date.from(version.lastModified());
+    }
+}
@@ -0,0 +1,281 @@
+package com.moviemanager.search;
+
+import com.moviemanager.dto.MovieSummaryDTO;
+import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.support.TransactionCallbacks;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded Lucene index over movie titles and descriptions, stored on the local filesystem.
+ * <p>
+ * Search terms are tokenized and matched exactly, by prefix and with a small edit distance,
+ * and the hits are ranked by relevance. The index is rebuilt from the database at startup, or
+ * only when it is empty if {@code moviemanager.search.rebuild-on-start} is false, and kept in
+ * sync by {@link MovieSearchIndexListener} once the writing transaction has committed.
+ * Because updates are applied after the commit, callers must still resolve the returned IDs
+ * against the database, which also drops entries of movies removed by bulk deletes.
+ */
+@ApplicationScoped
+public class MovieSearchIndex {
+
+    static final String FIELD_ID = "imdbID";
+    static final String FIELD_TITLE = "title";
+    static final String FIELD_DESCRIPTION = "description";
+    static final String FIELD_YEAR = "releaseYear";
+
+    private static final int REBUILD_BATCH_SIZE = 1000; // Movies read per transaction while rebuilding
+
+    @ConfigProperty(name = "moviemanager.search.directory", defaultValue = "data/search-index")
+    String directoryPath;
+
+    @ConfigProperty(name = "moviemanager.search.rebuild-on-start", defaultValue = "true")
+    boolean rebuildOnStart;
+
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+
+    private final Analyzer analyzer = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    };
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    void onStart(@Observes StartupEvent event) throws IOException {
+        directory = FSDirectory.open(Path.of(directoryPath));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(writer, null);
+        if (rebuildOnStart || writer.getDocStats().numDocs == 0) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+        if (directory != null) {
+            directory.close();
+        }
+    }
+
+    /**
+     * Replaces the content of the index with all movies currently in the database.
+     * <p>
+     * Movies are read in primary key order in batches of {@value #REBUILD_BATCH_SIZE}, each in
+     * its own short transaction, so the rebuild never holds the whole catalog in memory.
+     */
+    public void rebuild() {
+        try {
+            writer.deleteAll();
+            String after = null;
+            List<MovieSummaryDTO> batch;
+            do {
+                String cursor = after;
+                batch = QuarkusTransaction.requiringNew()
+                        .call(() -> movieRepository.findAfter(cursor, REBUILD_BATCH_SIZE));
+                for (MovieSummaryDTO movie : batch) {
+                    writer.addDocument(toDocument(movie));
+                }
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).imdbID();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rebuild the movie search index", e);
+        }
+    }
+
+    /**
+     * Schedules a movie to be added to or replaced in the index after the current transaction commits.
+     *
+     * @param movie Current state of the movie
+     */
+    public void indexAfterCommit(MovieSummaryDTO movie) {
+        transactionCallbacks.afterCommit(PendingChange.class, new PendingChange(movie.imdbID(), toDocument(movie)), this::apply);
+    }
+
+    /**
+     * Schedules a movie to be removed from the index after the current transaction commits.
+     *
+     * @param imdbID IMDb ID of the removed movie
+     */
+    public void removeAfterCommit(String imdbID) {
+        transactionCallbacks.afterCommit(PendingChange.class, new PendingChange(imdbID, null), this::apply);
+    }
+
+    /**
+     * Searches the index and returns the IMDb IDs of the best matching movies.
+     * <p>
+     * Every term of {@code title} must match the title, and every term of {@code text} must
+     * match either the title or the description. Title matches weigh more than description
+     * matches, and exact matches weigh more than prefix matches, which weigh more than fuzzy ones.
+     * The release year range only filters the hits and does not affect their relevance.
+     *
+     * @param title    Terms to match against the title only (optional)
+     * @param text     Terms to match against the title or the description (optional)
+     * @param yearFrom Earliest release year, inclusive (optional)
+     * @param yearTo   Latest release year, inclusive (optional)
+     * @param offset   Number of best matching hits to skip
+     * @param limit    Maximum number of IDs to return
+     * @return IMDb IDs ordered by descending relevance
+     */
+    public List<String> search(String title, String text, Integer yearFrom, Integer yearTo, int offset, int limit) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        addTermClauses(query, title, FIELD_TITLE);
+        addTermClauses(query, text, FIELD_TITLE, FIELD_DESCRIPTION);
+        if (yearFrom != null || yearTo != null) {
+            query.add(IntPoint.newRangeQuery(FIELD_YEAR,
+                            yearFrom == null ? Integer.MIN_VALUE : yearFrom,
+                            yearTo == null ? Integer.MAX_VALUE : yearTo),
+                    BooleanClause.Occur.FILTER);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(query.build(), (int) Math.min((long) offset + limit, Integer.MAX_VALUE)).scoreDocs;
+                List<String> ids = new ArrayList<>();
+                for (int i = offset; i < hits.length; i++) {
+                    ids.add(searcher.storedFields().document(hits[i].doc).get(FIELD_ID));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search the movie index", e);
+        }
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Applies all changes of one committed transaction with a single index commit.
+     */
+    private void apply(List<PendingChange> changes) {
+        try {
+            for (PendingChange change : changes) {
+                Term id = new Term(FIELD_ID, change.imdbID());
+                if (change.document() == null) {
+                    writer.deleteDocuments(id);
+                } else {
+                    writer.updateDocument(id, change.document());
+                }
+            }
+            commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update the movie search index", e);
+        }
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private Document toDocument(MovieSummaryDTO movie) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, movie.imdbID(), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, movie.title(), Field.Store.NO));
+        document.add(new TextField(FIELD_DESCRIPTION, movie.description(), Field.Store.NO));
+        document.add(new IntPoint(FIELD_YEAR, movie.releaseYear()));
+        return document;
+    }
+
+    /**
+     * Adds one required clause per analyzed term, matching the term in any of the given fields.
+     */
+    private void addTermClauses(BooleanQuery.Builder query, String text, String... fields) {
+        if (text == null) {
+            return;
+        }
+        for (String term : analyze(text)) {
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder();
+            for (String field : fields) {
+                float fieldBoost = FIELD_TITLE.equals(field) ? 2f : 1f;
+                Term fieldTerm = new Term(field, term);
+                termQuery.add(new BoostQuery(new TermQuery(fieldTerm), 4f * fieldBoost), BooleanClause.Occur.SHOULD);
+                termQuery.add(new BoostQuery(new PrefixQuery(fieldTerm), 2f * fieldBoost), BooleanClause.Occur.SHOULD);
+                int maxEdits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+                if (maxEdits > 0) {
+                    termQuery.add(new BoostQuery(new FuzzyQuery(fieldTerm, maxEdits, 1), fieldBoost),
+                            BooleanClause.Occur.SHOULD);
+                }
+            }
+            query.add(termQuery.build(), BooleanClause.Occur.MUST);
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_TITLE, text)) {
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(termAttribute.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to analyze search text", e);
+        }
+        return terms;
+    }
+
+    /**
+     * Index update waiting for its transaction to commit. A null document removes the movie.
+     */
+    private record PendingChange(String imdbID, Document document) {
+    }
+}
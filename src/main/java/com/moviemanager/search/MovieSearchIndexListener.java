@@ -0,0 +1,31 @@
+package com.moviemanager.search;
+
+import com.moviemanager.dto.MovieSummaryDTO;
+import com.moviemanager.entity.Movie;
+import io.quarkus.arc.Arc;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that keeps the {@link MovieSearchIndex} in sync with every Movie write,
+ * whether it comes from a REST endpoint or from a repository call.
+ */
+public class MovieSearchIndexListener {
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Movie movie) {
+        index().indexAfterCommit(new MovieSummaryDTO(
+                movie.getImdbID(), movie.getTitle(), movie.getReleaseYear(), movie.getDescription()));
+    }
+
+    @PostRemove
+    void onRemove(Movie movie) {
+        index().removeAfterCommit(movie.getImdbID());
+    }
+
+    private MovieSearchIndex index() {
+        return Arc.container().instance(MovieSearchIndex.class).get();
+    }
+}
@@ -0,0 +1,156 @@
+package com.moviemanager.service;
+
+import com.moviemanager.dto.ChangeDTO;
+import com.moviemanager.entity.ChangeLogEntry;
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
+import com.moviemanager.repository.ChangeLogRepository;
+import com.moviemanager.support.TransactionCallbacks;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the change log of movies and actors and serves it to consumers that follow it.
+ * <p>
+ * Write paths record their changes in their own transaction, so the log is a transactional
+ * outbox: an entry becomes visible exactly when its change commits. Because concurrent
+ * transactions can commit out of sequence order, entries are only handed out up to the lowest
+ * sequence number that is still held by an open transaction. A consumer that continues after
+ * the last entry it has seen therefore never skips one that commits later. This relies on all
+ * writes going through this instance, as they do with the embedded database.
+ */
+@ApplicationScoped
+public class ChangeLogService {
+
+    @Inject
+    ChangeLogRepository changeLogRepository;
+
+    @Inject
+    TransactionCallbacks transactionCallbacks;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition completed = lock.newCondition(); // Signalled whenever a transaction with entries completes
+    private final TreeSet<Long> pending = new TreeSet<>(); // Sequence numbers of entries in open transactions
+    private long lastAssigned = -1; // Highest sequence number assigned so far, -1 until known
+    private long completions; // Number of completed transactions with entries
+
+    /**
+     * Appends a change to the log within the current transaction.
+     *
+     * @param entityType Kind of entity that changed
+     * @param entityId   IMDb ID of the movie or ID of the actor
+     * @param changeType Kind of change
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void record(EntityType entityType, String entityId, ChangeType changeType) {
+        ChangeLogEntry entry = new ChangeLogEntry(entityType, entityId, changeType);
+        lock.lock();
+        try {
+            changeLogRepository.persist(entry); // Assigns the sequence number
+            pending.add(entry.getSeq());
+            lastAssigned = Math.max(lastAssigned, entry.getSeq());
+        } finally {
+            lock.unlock();
+        }
+        transactionCallbacks.afterCompletion(ChangeLogEntry.class, entry.getSeq(), this::complete);
+    }
+
+    /**
+     * Appends the same change of several entities to the log within the current transaction.
+     *
+     * @param entityType Kind of entities that changed
+     * @param entityIds  IMDb IDs of the movies or IDs of the actors
+     * @param changeType Kind of change
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void recordAll(EntityType entityType, List<String> entityIds, ChangeType changeType) {
+        entityIds.forEach(entityId -> record(entityType, entityId, changeType));
+    }
+
+    /**
+     * Retrieves the committed entries after the given sequence number, waiting for the next
+     * commit if there are none yet.
+     *
+     * @param since   Sequence number of the last entry already seen, or 0 to start at the beginning
+     * @param limit   Maximum number of entries to return
+     * @param timeout How long to wait for an entry before returning an empty list
+     * @return Entries ordered by sequence number, or an empty list if none was committed in time
+     */
+    public List<ChangeDTO> awaitChanges(long since, int limit, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            long seenCompletions = completions();
+            // Each read runs in its own short transaction, so no connection is held while waiting
+            List<ChangeDTO> changes = QuarkusTransaction.requiringNew().call(() -> {
+                long upTo = visibleUpTo();
+                return upTo > since ? changeLogRepository.findBetween(since, upTo, limit) : List.<ChangeDTO>of();
+            });
+            if (!changes.isEmpty()) {
+                return changes;
+            }
+
+            lock.lock();
+            try {
+                long remaining = deadline - System.nanoTime();
+                while (completions == seenCompletions) {
+                    if (remaining <= 0) {
+                        return List.of();
+                    }
+                    remaining = completed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return List.of();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Returns the highest sequence number below which every entry has either committed or
+     * rolled back. Sequence numbers are assigned in increasing order, so entries assigned later
+     * lie above it.
+     */
+    private long visibleUpTo() {
+        lock.lock();
+        try {
+            if (lastAssigned < 0) {
+                lastAssigned = changeLogRepository.findLastSeq(); // Entries written before this start
+            }
+            return pending.isEmpty() ? lastAssigned : pending.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long completions() {
+        lock.lock();
+        try {
+            return completions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void complete(List<Long> seqs) {
+        lock.lock();
+        try {
+            seqs.forEach(pending::remove);
+            completions++;
+            completed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.moviemanager.service;
+
+import com.moviemanager.cache.MovieCache;
+import com.moviemanager.dto.BulkImportResultDTO;
+import com.moviemanager.dto.BulkImportResultDTO.RowError;
+import com.moviemanager.dto.MovieCreateDTO;
+import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
+import com.moviemanager.entity.Movie;
+import com.moviemanager.repository.ActorRepository;
+import com.moviemanager.repository.MovieRepository;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbException;
+import jakarta.json.stream.JsonParser;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports large numbers of movies from a streamed request body.
+ * <p>
+ * The body is read row by row and processed in chunks of {@value #CHUNK_SIZE} movies. Each
+ * chunk is validated, checked for existing IMDb IDs and resolved against the actor table with
+ * one query each, then inserted together with its movie snapshots and change log entries in its
+ * own transaction using JDBC batching. Invalid rows are reported individually and never abort
+ * the rest of the import, except for a syntax error within a JSON array, which ends it after
+ * the rows before it have been imported. If a chunk fails while being stored, for example
+ * because another request created one of its movies in the meantime, its rows are retried one
+ * by one so that only the offending rows are rejected.
+ */
+@ApplicationScoped
+public class MovieImportService {
+
+    static final int CHUNK_SIZE = 500; // Rows validated and stored per transaction
+    private static final int MAX_REPORTED_ERRORS = 1000; // Rejected rows listed in the result
+
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    ActorRepository actorRepository;
+
+    @Inject
+    MovieCache movieCache;
+
+    @Inject
+    MovieSnapshotService movieSnapshotService;
+
+    @Inject
+    ChangeLogService changeLogService;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    Jsonb jsonb;
+
+    /**
+     * Imports the movies contained in the body.
+     *
+     * @param body    Either a JSON array of movies or newline-delimited JSON with one movie per line
+     * @param ndjson  Whether the body is newline-delimited JSON
+     * @return Number of imported movies and details of the rejected rows
+     * @throws JsonException if the body does not start a JSON array
+     * @throws IOException   if the body cannot be read
+     */
+    @WithSpan
+    public BulkImportResultDTO importMovies(InputStream body, boolean ndjson) throws IOException {
+        ImportResult result = new ImportResult();
+        List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        Consumer<ParsedRow> collector = row -> {
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, result);
+                chunk.clear();
+            }
+        };
+
+        if (ndjson) {
+            readLines(body, collector);
+        } else {
+            readArray(body, collector);
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        Span.current()
+                .setAttribute("moviemanager.import.imported", result.imported)
+                .setAttribute("moviemanager.import.failed", result.failed);
+        return result.toDTO();
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Reads newline-delimited JSON. Rows are numbered by line, and blank lines are skipped.
+     */
+    private void readLines(InputStream body, Consumer<ParsedRow> collector) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                collector.accept(parse(lineNumber, line));
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON array element by element without materializing the whole array.
+     * <p>
+     * A syntax error within the array cannot be skipped, because the end of the broken row is
+     * unknown. It is reported as a rejected row and ends the reading, while the rows before it
+     * are still imported.
+     */
+    private void readArray(InputStream body, Consumer<ParsedRow> collector) {
+        try (JsonParser parser = Json.createParser(body)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new JsonException("Expected a JSON array.");
+            }
+            int row = 0;
+            boolean inRow = false; // Whether the parser is within the current row
+            try {
+                while (parser.hasNext()) {
+                    JsonParser.Event event = parser.next();
+                    if (event == JsonParser.Event.END_ARRAY) {
+                        break;
+                    }
+                    row++;
+                    inRow = true;
+                    if (event == JsonParser.Event.START_OBJECT) {
+                        collector.accept(parse(row, parser.getObject().toString()));
+                    } else {
+                        if (event == JsonParser.Event.START_ARRAY) {
+                            parser.skipArray();
+                        }
+                        collector.accept(new ParsedRow(row, null, "Row must be a JSON object."));
+                    }
+                    inRow = false;
+                }
+            } catch (JsonException e) {
+                collector.accept(new ParsedRow(inRow ? row : row + 1, null,
+                        "Row is not valid JSON, the rest of the body was not read."));
+            }
+        }
+    }
+
+    private ParsedRow parse(int row, String json) {
+        try {
+            return new ParsedRow(row, jsonb.fromJson(json, MovieCreateDTO.class), null);
+        } catch (JsonbException | JsonException e) {
+            return new ParsedRow(row, null, "Row is not a valid movie.");
+        }
+    }
+
+    /**
+     * Validates one chunk in memory, then stores the remaining rows in a single transaction.
+     */
+    private void importChunk(List<ParsedRow> chunk, ImportResult result) {
+        List<ParsedRow> candidates = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        for (ParsedRow row : chunk) {
+            if (row.error() != null) {
+                result.reject(new RowError(row.row(), null, List.of(row.error())));
+                continue;
+            }
+            Set<ConstraintViolation<MovieCreateDTO>> violations = validator.validate(row.movie());
+            if (!violations.isEmpty()) {
+                result.reject(new RowError(row.row(), row.movie().getImdbID(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.toList())));
+            } else if (!seenIds.add(row.movie().getImdbID())) {
+                result.reject(new RowError(row.row(), row.movie().getImdbID(),
+                        List.of("Duplicate IMDb ID in this chunk.")));
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        ChunkOutcome outcome;
+        try {
+            outcome = QuarkusTransaction.requiringNew().call(() -> storeChunk(candidates));
+        } catch (RuntimeException e) {
+            // Isolate the offending rows by storing them one at a time
+            outcome = new ChunkOutcome(new ArrayList<>(), new ArrayList<>());
+            for (ParsedRow row : candidates) {
+                try {
+                    outcome.merge(QuarkusTransaction.requiringNew().call(() -> storeChunk(List.of(row))));
+                } catch (RuntimeException rowFailure) {
+                    outcome.rejected().add(new RowError(row.row(), row.movie().getImdbID(),
+                            List.of("Movie could not be stored.")));
+                }
+            }
+        }
+
+        outcome.importedIds().forEach(movieCache::invalidate); // Drop cached "not found" entries
+        result.imported += outcome.importedIds().size();
+        outcome.rejected().forEach(result::reject);
+    }
+
+    /**
+     * Stores valid rows within the current transaction, resolving existing movies and actors
+     * with one query each.
+     */
+    private ChunkOutcome storeChunk(List<ParsedRow> rows) {
+        List<String> imdbIDs = rows.stream().map(row -> row.movie().getImdbID()).collect(Collectors.toList());
+        Set<String> existingIds = new HashSet<>(movieRepository.getEntityManager()
+                .createQuery("select m.imdbID from Movie m where m.imdbID in ?1", String.class)
+                .setParameter(1, imdbIDs)
+                .getResultList());
+
+        Set<Long> actorIds = rows.stream()
+                .map(row -> row.movie().getCast())
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        Map<Long, Actor> actors = actorIds.isEmpty()
+                ? Map.of()
+                : actorRepository.findByIds(actorIds).stream()
+                .collect(Collectors.toMap(Actor::getId, Function.identity()));
+
+        ChunkOutcome outcome = new ChunkOutcome(new ArrayList<>(), new ArrayList<>());
+        for (ParsedRow row : rows) {
+            MovieCreateDTO movieDTO = row.movie();
+            if (existingIds.contains(movieDTO.getImdbID())) {
+                outcome.rejected().add(new RowError(row.row(), movieDTO.getImdbID(),
+                        List.of("Movie with this IMDb ID already exists.")));
+                continue;
+            }
+            List<Long> castIds = movieDTO.getCast() == null ? List.of() : movieDTO.getCast();
+            List<Actor> cast = castIds.stream().distinct().map(actors::get).collect(Collectors.toList());
+            if (cast.contains(null)) {
+                outcome.rejected().add(new RowError(row.row(), movieDTO.getImdbID(),
+                        List.of("One or more actors not found.")));
+                continue;
+            }
+            movieRepository.persist(new Movie(
+                    movieDTO.getImdbID(),
+                    movieDTO.getTitle(),
+                    movieDTO.getReleaseYear(),
+                    movieDTO.getDescription(),
+                    movieDTO.getPictures(),
+                    cast
+            ));
+            outcome.importedIds().add(movieDTO.getImdbID());
+        }
+        movieRepository.flush();
+        movieSnapshotService.refresh(outcome.importedIds());
+        changeLogService.recordAll(EntityType.MOVIE, outcome.importedIds(), ChangeType.CREATED);
+        return outcome;
+    }
+
+    /**
+     * A row of the request body, holding either the parsed movie or the reason it could not be parsed.
+     */
+    private record ParsedRow(int row, MovieCreateDTO movie, String error) {
+    }
+
+    /**
+     * Rows stored and rejected while storing one chunk.
+     */
+    private record ChunkOutcome(List<String> importedIds, List<RowError> rejected) {
+
+        void merge(ChunkOutcome other) {
+            importedIds.addAll(other.importedIds());
+            rejected.addAll(other.rejected());
+        }
+    }
+
+    /**
+     * Running totals of an import.
+     */
+    private static final class ImportResult {
+
+        private int imported;
+        private int failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        void reject(RowError error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        BulkImportResultDTO toDTO() {
+            errors.sort(Comparator.comparingInt(RowError::row));
+            return new BulkImportResultDTO(imported, failed, errors);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.moviemanager.service;
+
+import com.moviemanager.dto.ActorReadDTO;
+import com.moviemanager.dto.MovieReadDTO;
+import com.moviemanager.dto.MovieSnapshotDTO;
+import com.moviemanager.dto.VersionDTO;
+import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.Movie;
+import com.moviemanager.entity.MovieSnapshot;
+import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.repository.MovieSnapshotRepository;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains one pre-rendered JSON document per movie in the {@code movie_snapshot} table.
+ * <p>
+ * Write paths regenerate the affected snapshots in their own transaction, so a snapshot always
+ * commits together with the change it reflects. Reads then return the stored bytes with a single
+ * primary key lookup instead of loading the movie, its pictures and its cast. Movies inserted
+ * outside the write paths, such as by {@code import.sql}, get their snapshot on first read.
+ */
+@ApplicationScoped
+public class MovieSnapshotService {
+
+    private static final int CHUNK_SIZE = 500; // Movies regenerated per round of queries
+
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    MovieSnapshotRepository movieSnapshotRepository;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    Tracer tracer;
+
+    /**
+     * Returns the snapshot of a movie, rendering and storing it first if it is missing.
+     *
+     * @param imdbID IMDb ID of the movie
+     * @return UTF-8 encoded JSON of the movie and its version, or null if the movie does not exist
+     */
+    @WithSpan
+    public MovieSnapshotDTO load(String imdbID) {
+        MovieSnapshotDTO snapshot = movieSnapshotRepository.findSnapshot(imdbID);
+        Span.current().setAttribute("moviemanager.snapshot.stored", snapshot != null);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        try {
+            return QuarkusTransaction.requiringNew().call(() -> store(List.of(imdbID), false)).get(imdbID);
+        } catch (RuntimeException e) {
+            // A concurrent read or write stored the snapshot first, and its version wins
+            return movieSnapshotRepository.findSnapshot(imdbID);
+        }
+    }
+
+    /**
+     * Returns the snapshots of several movies, rendering and storing the missing ones first.
+     * <p>
+     * The stored snapshots are read with one query per chunk of {@value #CHUNK_SIZE} movies,
+     * which also tells which of the movies exist. Only existing movies without a snapshot are
+     * rendered, together, so unknown IDs cost nothing beyond that query.
+     *
+     * @param imdbIDs IMDb IDs of the movies, without duplicates
+     * @return Snapshots keyed by IMDb ID, without entries for movies that do not exist
+     */
+    @WithSpan
+    public Map<String, MovieSnapshotDTO> loadAll(List<String> imdbIDs) {
+        Map<String, MovieSnapshotDTO> snapshots = new HashMap<>();
+        for (int from = 0; from < imdbIDs.size(); from += CHUNK_SIZE) {
+            snapshots.putAll(movieSnapshotRepository.findSnapshotsOfMovies(
+                    imdbIDs.subList(from, Math.min(from + CHUNK_SIZE, imdbIDs.size()))));
+        }
+        List<String> missing = imdbIDs.stream()
+                .filter(imdbID -> snapshots.containsKey(imdbID) && snapshots.get(imdbID) == null)
+                .toList();
+        Span.current().setAttribute("moviemanager.movies", imdbIDs.size());
+        Span.current().setAttribute("moviemanager.snapshot.missing", missing.size());
+        for (int from = 0; from < missing.size(); from += CHUNK_SIZE) {
+            List<String> chunk = missing.subList(from, Math.min(from + CHUNK_SIZE, missing.size()));
+            try {
+                snapshots.putAll(QuarkusTransaction.requiringNew().call(() -> store(chunk, false)));
+            } catch (RuntimeException e) {
+                // A concurrent read or write stored some of the snapshots first, so fall back to one by one
+                chunk.forEach(imdbID -> snapshots.put(imdbID, load(imdbID)));
+            }
+        }
+        snapshots.values().removeIf(Objects::isNull); // Movies deleted in the meantime
+        return snapshots;
+    }
+
+    /**
+     * Regenerates the snapshots of the given movies within the current transaction.
+     * Snapshots of movies that no longer exist are removed.
+     *
+     * @param imdbIDs IMDb IDs of the changed movies
+     * @return The regenerated snapshots keyed by IMDb ID, without entries for movies that no longer exist
+     */
+    @WithSpan
+    public Map<String, MovieSnapshotDTO> refresh(List<String> imdbIDs) {
+        Span.current().setAttribute("moviemanager.movies", imdbIDs.size());
+        movieRepository.flush();
+        Map<String, MovieSnapshotDTO> snapshots = new HashMap<>();
+        for (int from = 0; from < imdbIDs.size(); from += CHUNK_SIZE) {
+            snapshots.putAll(store(imdbIDs.subList(from, Math.min(from + CHUNK_SIZE, imdbIDs.size())), true));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Stores the snapshot of a newly created movie within the current transaction.
+     * <p>
+     * The snapshot is rendered from the entity itself, which already holds the pictures and the
+     * cast, so unlike {@link #refresh(List)} no query reads the movie back. Both are ordered as
+     * they are when loaded, so the snapshot equals the one a refresh would render.
+     *
+     * @param movie The created movie, already persisted
+     * @return The stored snapshot
+     */
+    @WithSpan
+    public MovieSnapshotDTO add(Movie movie) {
+        MovieReadDTO readModel = new MovieReadDTO(
+                movie.getImdbID(),
+                movie.getTitle(),
+                movie.getReleaseYear(),
+                movie.getDescription(),
+                movie.getPictures().stream().sorted().toList(),
+                movie.getCast().stream()
+                        .sorted(Comparator.comparing(Actor::getId))
+                        .map(actor -> new ActorReadDTO(actor.getId(), actor.getName(), actor.getBirthdate()))
+                        .toList());
+        MovieSnapshotDTO snapshot = render(List.of(readModel),
+                Map.of(movie.getImdbID(), new VersionDTO(movie.getVersion(), movie.getLastModified())))
+                .get(movie.getImdbID());
+        movieSnapshotRepository.persist(
+                new MovieSnapshot(movie.getImdbID(), snapshot.document(), snapshot.version(), snapshot.lastModified()));
+        return snapshot;
+    }
+
+    /**
+     * Removes the snapshot of a deleted movie within the current transaction.
+     *
+     * @param imdbID IMDb ID of the deleted movie
+     */
+    public void remove(String imdbID) {
+        movieSnapshotRepository.delete("imdbID", imdbID);
+    }
+
+    // -------------------- Helper Methods --------------------
+
+    /**
+     * Renders the given movies and inserts their snapshots, replacing existing ones if requested.
+     * Without replacing, an existing snapshot makes the insert fail on its primary key.
+     */
+    private Map<String, MovieSnapshotDTO> store(List<String> imdbIDs, boolean replace) {
+        if (replace) {
+            movieSnapshotRepository.delete("imdbID in ?1", imdbIDs);
+        }
+        Map<String, VersionDTO> versions = movieRepository.findVersionsByIds(imdbIDs);
+        Map<String, MovieSnapshotDTO> snapshots = render(
+                movieRepository.toReadModels(movieRepository.findSummariesByIds(imdbIDs)), versions);
+        snapshots.forEach((imdbID, snapshot) -> movieSnapshotRepository.persist(
+                new MovieSnapshot(imdbID, snapshot.document(), snapshot.version(), snapshot.lastModified())));
+        movieSnapshotRepository.flush();
+        return snapshots;
+    }
+
+    /**
+     * Serializes the movies with JSON-B, traced as a span of its own so that serialization
+     * time can be told apart from the surrounding queries.
+     */
+    private Map<String, MovieSnapshotDTO> render(List<MovieReadDTO> movies, Map<String, VersionDTO> versions) {
+        Span span = tracer.spanBuilder("MovieSnapshotService.render").startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            Map<String, MovieSnapshotDTO> snapshots = new HashMap<>();
+            long bytes = 0;
+            for (MovieReadDTO movie : movies) {
+                VersionDTO version = versions.get(movie.imdbID());
+                byte[] document = jsonb.toJson(movie).getBytes(StandardCharsets.UTF_8);
+                snapshots.put(movie.imdbID(), new MovieSnapshotDTO(document, version.version(), version.lastModified()));
+                bytes += document.length;
+            }
+            span.setAttribute("moviemanager.movies", movies.size());
+            span.setAttribute("moviemanager.snapshot.bytes", bytes);
+            return snapshots;
+        } finally {
+            span.end();
+        }
+    }
+}
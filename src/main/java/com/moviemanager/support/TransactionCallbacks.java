@@ -0,0 +1,126 @@
+package com.moviemanager.support;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Defers side effects of a write until its transaction has committed.
+ * <p>
+ * Side effects that live outside the database, such as in-memory indexes and caches, must
+ * not observe changes that are later rolled back.
+ */
+@ApplicationScoped
+public class TransactionCallbacks {
+
+    @Inject
+    TransactionSynchronizationRegistry synchronizationRegistry;
+
+    /**
+     * Runs the action once the current transaction has committed, or immediately if no
+     * transaction is active. The action is dropped if the transaction rolls back.
+     *
+     * @param action Action to run after the commit
+     */
+    public void afterCommit(Runnable action) {
+        register(action, true);
+    }
+
+    /**
+     * Runs the action once the current transaction has completed, whether it committed or
+     * rolled back. The action runs immediately if no transaction is active or the transaction
+     * can only roll back.
+     *
+     * @param action Action to run after the completion
+     */
+    public void afterCompletion(Runnable action) {
+        register(action, false);
+    }
+
+    /**
+     * Collects items during the current transaction and hands them to the action in a single
+     * call once the transaction has committed. Items added under the same key within one
+     * transaction end up in the same batch. Without an active transaction, the action is
+     * called immediately with the single item.
+     *
+     * @param key    Identifies the batch within the transaction
+     * @param item   Item to add to the batch
+     * @param action Action to run after the commit with all items of the batch, in order
+     * @param <T>    Item type
+     */
+    public <T> void afterCommit(Object key, T item, Consumer<List<T>> action) {
+        collect(key, item, action, true);
+    }
+
+    /**
+     * Collects items during the current transaction like {@link #afterCommit(Object, Object, Consumer)},
+     * but hands them to the action once the transaction has completed, whether it committed or
+     * rolled back. The action is called immediately with the single item if no transaction is
+     * active or the transaction can only roll back.
+     *
+     * @param key    Identifies the batch within the transaction
+     * @param item   Item to add to the batch
+     * @param action Action to run after the completion with all items of the batch, in order
+     * @param <T>    Item type
+     */
+    public <T> void afterCompletion(Object key, T item, Consumer<List<T>> action) {
+        collect(key, item, action, false);
+    }
+
+    private void register(Runnable action, boolean onlyOnCommit) {
+        int status = synchronizationRegistry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            action.run();
+            return;
+        }
+        if (status != Status.STATUS_ACTIVE) {
+            // The transaction can only roll back from here
+            if (!onlyOnCommit) {
+                action.run();
+            }
+            return;
+        }
+        synchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!onlyOnCommit || status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private <T> void collect(Object key, T item, Consumer<List<T>> action, boolean onlyOnCommit) {
+        int status = synchronizationRegistry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            action.accept(List.of(item));
+            return;
+        }
+        if (status != Status.STATUS_ACTIVE) {
+            // The transaction can only roll back from here
+            if (!onlyOnCommit) {
+                action.accept(List.of(item));
+            }
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> batch = (List<T>) synchronizationRegistry.getResource(key);
+        if (batch == null) {
+            List<T> newBatch = new ArrayList<>();
+            synchronizationRegistry.putResource(key, newBatch);
+            register(() -> action.accept(newBatch), onlyOnCommit);
+            batch = newBatch;
+        }
+        batch.add(item);
+    }
+}
@@ -0,0 +1,36 @@
+package com.moviemanager.support;
+
+import io.quarkus.logging.LoggingFilter;
+import org.jboss.logmanager.ExtLogRecord;
+
+import java.util.Set;
+import java.util.logging.Filter;
+import java.util.logging.LogRecord;
+
+/**
+ * Drops the records Hibernate logs for unique constraint violations.
+ * <p>
+ * Hibernate logs every failed statement at ERROR, with its SQL, before it throws. A unique
+ * violation is an expected outcome, such as a movie created twice, and is still thrown as
+ * a {@link org.hibernate.exception.ConstraintViolationException} that the caller answers with
+ * 409 Conflict, so the records only add noise. Records of any other failure are kept.
+ */
+@LoggingFilter(name = "unique-violation")
+public class UniqueViolationLogFilter implements Filter {
+
+    private static final Set<String> CATEGORIES = Set.of(
+            "org.hibernate.engine.jdbc.spi.SqlExceptionHelper",
+            "org.hibernate.orm.jdbc.batch");
+
+    // SQLState of a unique violation, which H2 appends to its messages as [23505-<build>]
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        if (!CATEGORIES.contains(record.getLoggerName())) {
+            return true;
+        }
+        String message = record instanceof ExtLogRecord extRecord ? extRecord.getFormattedMessage() : record.getMessage();
+        return message == null || !message.contains(UNIQUE_VIOLATION);
+    }
+}
@@ -0,0 +1,45 @@
+-- Initial schema, matching the entity mappings. Applied by Flyway in the prod profile only,
+-- dev and test mode still let Hibernate drop and create the schema and load import.sql.
+
+create table Actor (
+    birthdate date,
+    id bigint generated by default as identity,
+    lastModified timestamp(6) with time zone not null,
+    version bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table Movie (
+    releaseYear integer not null,
+    lastModified timestamp(6) with time zone not null,
+    version bigint not null,
+    description varchar(255),
+    imdbID varchar(255) not null,
+    title varchar(255),
+    primary key (imdbID)
+);
+
+create table movie_cast (
+    actor_id bigint not null,
+    movie_imdbID varchar(255) not null,
+    constraint fk_movie_cast_actor foreign key (actor_id) references Actor,
+    constraint fk_movie_cast_movie foreign key (movie_imdbID) references Movie
+);
+
+create table movie_pictures (
+    imdbID varchar(255) not null,
+    pictures varchar(255),
+    constraint fk_movie_pictures_movie foreign key (imdbID) references Movie
+);
+
+create table movie_snapshot (
+    lastModified timestamp(6) with time zone not null,
+    version bigint not null,
+    imdbID varchar(255) not null,
+    document blob not null,
+    primary key (imdbID)
+);
+
+create index idx_movie_cast_actor on movie_cast (actor_id, movie_imdbID);
+create index idx_movie_cast_movie on movie_cast (movie_imdbID);
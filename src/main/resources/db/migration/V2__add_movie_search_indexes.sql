@@ -0,0 +1,4 @@
+-- Indexes behind the filters and orders of GET /movies/search.
+
+create index idx_movie_year_title on Movie (releaseYear, title);
+create index idx_movie_title on Movie (title);
@@ -0,0 +1,3 @@
+-- Index behind the name prefix search and name order of GET /actors.
+
+create index idx_actor_name on Actor (name);
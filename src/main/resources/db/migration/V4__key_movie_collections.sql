@@ -0,0 +1,15 @@
+-- Pictures and cast are mapped as sets, which Hibernate updates row by row through their primary keys.
+-- Duplicate and empty rows, which the former list mapping allowed, are removed first.
+
+delete from movie_pictures where pictures is null;
+delete from movie_pictures p
+where exists (select 1 from movie_pictures d where d.imdbID = p.imdbID and d.pictures = p.pictures and d._ROWID_ < p._ROWID_);
+alter table movie_pictures alter column pictures set not null;
+alter table movie_pictures add constraint pk_movie_pictures primary key (imdbID, pictures);
+
+delete from movie_cast c
+where exists (select 1 from movie_cast d where d.movie_imdbID = c.movie_imdbID and d.actor_id = c.actor_id and d._ROWID_ < c._ROWID_);
+alter table movie_cast add constraint pk_movie_cast primary key (movie_imdbID, actor_id);
+
+-- The primary key starts with movie_imdbID and replaces the index on that column
+drop index idx_movie_cast_movie;
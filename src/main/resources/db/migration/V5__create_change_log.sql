@@ -0,0 +1,13 @@
+-- Append-only change log of movies and actors, written in the same transaction as each change.
+-- Sequence numbers are handed out in blocks of 50 by Hibernate's pooled optimizer.
+
+create sequence change_log_seq start with 1 increment by 50;
+
+create table change_log (
+    changedAt timestamp(6) with time zone not null,
+    seq bigint not null,
+    entityType varchar(16) not null,
+    changeType varchar(16) not null,
+    entityId varchar(255) not null,
+    primary key (seq)
+);
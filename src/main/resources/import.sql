@@ -1,32 +1,32 @@
 -- Insert Actors
-INSERT INTO Actor (id, name, birthdate)
-VALUES (1, 'Tim Robbins', '1958-10-16'),
-       (2, 'Morgan Freeman', '1937-06-01'),
-       (3, 'Leonardo DiCaprio', '1974-11-11'),
-       (4, 'Liam Neeson', '1952-06-07'),
-       (5, 'Viggo Mortensen', '1958-10-20'),
-       (6, 'Mark Hamill', '1951-09-25'),
-       (7, 'Brad Pitt', '1963-12-18'),
-       (8, 'Elijah Wood', '1981-01-28'),
-       (9, 'Tom Hanks', '1956-07-09');
+INSERT INTO Actor (id, name, birthdate, version, lastModified)
+VALUES (1, 'Tim Robbins', '1958-10-16', 0, CURRENT_TIMESTAMP),
+       (2, 'Morgan Freeman', '1937-06-01', 0, CURRENT_TIMESTAMP),
+       (3, 'Leonardo DiCaprio', '1974-11-11', 0, CURRENT_TIMESTAMP),
+       (4, 'Liam Neeson', '1952-06-07', 0, CURRENT_TIMESTAMP),
+       (5, 'Viggo Mortensen', '1958-10-20', 0, CURRENT_TIMESTAMP),
+       (6, 'Mark Hamill', '1951-09-25', 0, CURRENT_TIMESTAMP),
+       (7, 'Brad Pitt', '1963-12-18', 0, CURRENT_TIMESTAMP),
+       (8, 'Elijah Wood', '1981-01-28', 0, CURRENT_TIMESTAMP),
+       (9, 'Tom Hanks', '1956-07-09', 0, CURRENT_TIMESTAMP);
 ALTER TABLE Actor
     ALTER COLUMN id RESTART WITH 10;
 
 -- Insert Movies
-INSERT INTO Movie (imdbID, title, releaseYear, description)
-VALUES ('tt0111161', 'The Shawshank Redemption', 1994, 'Two imprisoned men bond over a number of years...'),
-       ('tt0068646', 'The Godfather', 1972, 'The aging patriarch of an organized crime dynasty...'),
+INSERT INTO Movie (imdbID, title, releaseYear, description, version, lastModified)
+VALUES ('tt0111161', 'The Shawshank Redemption', 1994, 'Two imprisoned men bond over a number of years...', 0, CURRENT_TIMESTAMP),
+       ('tt0068646', 'The Godfather', 1972, 'The aging patriarch of an organized crime dynasty...', 0, CURRENT_TIMESTAMP),
        ('tt1375666', 'Inception', 2010,
-        'A thief who steals corporate secrets through the use of dream-sharing technology...'),
-       ('tt0108052', 'Schindler''s List', 1993, 'In German-occupied Poland during World War II...'),
+        'A thief who steals corporate secrets through the use of dream-sharing technology...', 0, CURRENT_TIMESTAMP),
+       ('tt0108052', 'Schindler''s List', 1993, 'In German-occupied Poland during World War II...', 0, CURRENT_TIMESTAMP),
        ('tt0167260', 'The Lord of the Rings: The Return of the King', 2003,
-        'Gandalf and Aragorn lead the World of Men against Sauron''s army...'),
+        'Gandalf and Aragorn lead the World of Men against Sauron''s army...', 0, CURRENT_TIMESTAMP),
        ('tt0080684', 'Star Wars: Episode V - The Empire Strikes Back', 1980,
-        'After the Rebels are brutally overpowered by the Empire on the ice planet Hoth...'),
+        'After the Rebels are brutally overpowered by the Empire on the ice planet Hoth...', 0, CURRENT_TIMESTAMP),
        ('tt0137523', 'Fight Club', 1999,
-        'An insomniac office worker and a devil-may-care soap maker form an underground fight club...'),
+        'An insomniac office worker and a devil-may-care soap maker form an underground fight club...', 0, CURRENT_TIMESTAMP),
        ('tt0120737', 'The Lord of the Rings: The Fellowship of the Ring', 2001,
-        'A meek Hobbit from the Shire and eight companions set out on a journey to destroy the powerful One Ring...');
+        'A meek Hobbit from the Shire and eight companions set out on a journey to destroy the powerful One Ring...', 0, CURRENT_TIMESTAMP);
 
 -- Insert Movie Pictures
 INSERT INTO movie_pictures (imdbID, pictures)
@@ -1,17 +1,26 @@
 package com.moviemanager.resource;
 
 import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.Movie;
 import com.moviemanager.repository.ActorRepository;
+import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.repository.MovieSnapshotRepository;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
  * Integration tests for the ActorResource REST endpoints.
@@ -22,9 +31,21 @@ public class ActorResourceTest {
     @Inject
     ActorRepository actorRepository;
 
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    MovieSnapshotRepository movieSnapshotRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
     @BeforeEach
     @Transactional
     public void setup() {
+        // Movies reference their cast, so they go first
+        movieSnapshotRepository.deleteAll();
+        movieRepository.deleteAll();
         actorRepository.deleteAll();
     }
 
@@ -41,6 +62,174 @@ public class ActorResourceTest {
                 .body("id", hasItem(actorId.intValue()));
     }
 
+    @Test
+    public void testGetAllActorsIsCapped() {
+        String[] names = new String[1001];
+        Arrays.fill(names, "Extra");
+        List<Long> actorIds = createTestActors(names);
+
+        // The plain list stops at 1000 actors and links to the page that follows it
+        String next = given()
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1000))
+                .body("[999].id", equalTo(actorIds.get(999).intValue()))
+                .header("Link", containsString("rel=\"next\""))
+                .extract().header("Link");
+
+        given()
+                .when()
+                .get(next.substring(next.indexOf('<') + 1, next.indexOf('>')))
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(actorIds.get(1000).intValue()))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testGetActorsWithCursor() {
+        List<Long> actorIds = createTestActors("First", "Second", "Third");
+
+        String cursor = given()
+                .queryParam("size", 2)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(actorIds.get(0).intValue(), actorIds.get(1).intValue()))
+                .body("pageSize", equalTo(2))
+                .body("nextCursor", notNullValue())
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("after", cursor)
+                .queryParam("size", 2)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(actorIds.get(2).intValue()))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testSearchActorsByNamePrefix() {
+        List<Long> actorIds = createTestActors("Morgan Freeman", "Anna Mortimer", "Morgan Freeman", "Mortimer", "Mo_rgan");
+
+        // Equal names are ordered by ID, so the page boundary between them is stable
+        String cursor = given()
+                .queryParam("namePrefix", "Mor")
+                .queryParam("size", 2)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("items.id", contains(actorIds.get(0).intValue(), actorIds.get(2).intValue()))
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("namePrefix", "Mor")
+                .queryParam("size", 2)
+                .queryParam("after", cursor)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("items.name", contains("Mortimer"))
+                .body("nextCursor", nullValue());
+
+        // Wildcards in the prefix match literally
+        given()
+                .queryParam("namePrefix", "Mo_")
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("items.name", contains("Mo_rgan"));
+
+        // A cursor of the ID order does not continue a name prefix search
+        String idCursor = given()
+                .queryParam("size", 1)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("namePrefix", "Mor")
+                .queryParam("after", idCursor)
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Invalid cursor."));
+    }
+
+    @Test
+    public void testStreamAllActorsAsNdjson() {
+        Long actorId = createTestActor();
+
+        given()
+                .accept("application/x-ndjson")
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .body(equalTo("{\"birthdate\":\"1980-01-01\",\"id\":" + actorId + ",\"name\":\"Test Actor\"}\n"));
+    }
+
+    @Test
+    public void testGetActorMoviesWithCursor() {
+        Long actorId = createTestActor();
+        createTestMovie("tt1375666", "Inception", actorId);
+        createTestMovie("tt0068646", "The Godfather", actorId);
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        String nextCursor = given()
+                .queryParam("size", 1)
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}/movies")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0068646"))
+                .body("pageSize", equalTo(1))
+                .body("nextCursor", notNullValue())
+                .extract()
+                .path("nextCursor");
+
+        // Single query over the cast index
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        given()
+                .queryParam("after", nextCursor)
+                .queryParam("size", 1)
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}/movies")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt1375666"))
+                .body("items[0].title", equalTo("Inception"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testGetActorMoviesForUnknownActor() {
+        given()
+                .pathParam("id", 999999)
+                .when()
+                .get("/actors/{id}/movies")
+                .then()
+                .statusCode(404)
+                .body("message", equalTo("Actor not found."));
+    }
+
     @Test
     public void testCreateActor() {
         String actorJson = "{ " +
@@ -97,6 +286,94 @@ public class ActorResourceTest {
                 .body("birthdate", equalTo("1990-01-01"));
     }
 
+    @Test
+    public void testGetActorByIdNotModified() {
+        Long actorId = createTestActor();
+
+        String eTag = given()
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}")
+                .then()
+                .statusCode(200)
+                .header("Last-Modified", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", eTag)
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}")
+                .then()
+                .statusCode(304);
+    }
+
+    @Test
+    public void testUpdateActorWithStaleIfMatch() {
+        Long actorId = createTestActor();
+        String eTag = given().pathParam("id", actorId).get("/actors/{id}").then().extract().header("ETag");
+
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body("{ \"name\": \"Updated Name\", \"birthdate\": \"1990-01-01\" }")
+                .pathParam("id", actorId)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(eTag)));
+
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body("{ \"name\": \"Other Name\", \"birthdate\": \"1990-01-01\" }")
+                .pathParam("id", actorId)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(412)
+                .body("message", equalTo("Actor was modified since it was retrieved."));
+    }
+
+    @Test
+    public void testGetActorByIdFromCacheUntilUpdated() {
+        Long actorId = createTestActor();
+        given().pathParam("id", actorId).get("/actors/{id}").then().statusCode(200);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Test Actor"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Updated Name\", \"birthdate\": \"1990-01-01\" }")
+                .pathParam("id", actorId)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200);
+
+        given()
+                .pathParam("id", actorId)
+                .when()
+                .get("/actors/{id}")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Updated Name"))
+                .body("birthdate", equalTo("1990-01-01"));
+    }
+
     @Test
     public void testDeleteActor() {
         Long actorId = createTestActor();
@@ -118,6 +395,46 @@ public class ActorResourceTest {
                 .body("message", equalTo("Actor not found."));
     }
 
+    @Test
+    public void testDeleteActorInMovieIsRejected() {
+        Long actorId = createTestActor();
+        createTestMovie("tt0111161", "The Shawshank Redemption", actorId);
+        sessionFactory.getCache().evict(Actor.class, actorId); // Cached while creating the movie
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .pathParam("id", actorId)
+                .when()
+                .delete("/actors/{id}")
+                .then()
+                .statusCode(409)
+                .body("message", equalTo("Cannot delete actor associated with movies."));
+
+        // Actor and a single-row probe of the cast, without loading the actor's movies
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testDeleteUnreferencedActors() {
+        List<Long> actorIds = createTestActors("Cast Member", "Unknown Actor", "Another Unknown Actor");
+        createTestMovie("tt0111161", "The Shawshank Redemption", actorIds.get(0));
+
+        given()
+                .when()
+                .delete("/actors/unreferenced")
+                .then()
+                .statusCode(200)
+                .body("deleted", equalTo(2));
+
+        given()
+                .when()
+                .get("/actors")
+                .then()
+                .statusCode(200)
+                .body("id", contains(actorIds.get(0).intValue()));
+    }
+
     @Test
     public void testCreateActorValidationFailure() {
         // Missing name
@@ -135,6 +452,25 @@ public class ActorResourceTest {
                 .body("errors[0]", containsString("Name cannot be blank"));
     }
 
+    @Transactional
+    public List<Long> createTestActors(String... names) {
+        List<Long> actorIds = new ArrayList<>();
+        for (String name : names) {
+            Actor actor = new Actor();
+            actor.setName(name);
+            actor.setBirthdate(LocalDate.of(1980, 1, 1));
+            actorRepository.persist(actor);
+            actorIds.add(actor.getId());
+        }
+        return actorIds;
+    }
+
+    @Transactional
+    public void createTestMovie(String imdbID, String title, Long... castIds) {
+        List<Actor> cast = Arrays.stream(castIds).map(actorRepository::findById).toList();
+        movieRepository.persist(new Movie(imdbID, title, 2000, "Test description.", List.of(), cast));
+    }
+
     @Transactional
     public Long createTestActor() {
         Actor actor = new Actor();
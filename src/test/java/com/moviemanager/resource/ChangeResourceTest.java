@@ -0,0 +1,324 @@
+package com.moviemanager.resource;
+
+import com.moviemanager.entity.Actor;
+import com.moviemanager.entity.ChangeLogEntry.ChangeType;
+import com.moviemanager.entity.ChangeLogEntry.EntityType;
+import com.moviemanager.entity.Movie;
+import com.moviemanager.repository.ActorRepository;
+import com.moviemanager.repository.ChangeLogRepository;
+import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.repository.MovieSnapshotRepository;
+import com.moviemanager.service.ChangeLogService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the ChangeResource REST endpoints.
+ */
+@QuarkusTest
+public class ChangeResourceTest {
+
+    @Inject
+    ActorRepository actorRepository;
+
+    @Inject
+    MovieRepository movieRepository;
+
+    @Inject
+    MovieSnapshotRepository movieSnapshotRepository;
+
+    @Inject
+    ChangeLogRepository changeLogRepository;
+
+    @Inject
+    ChangeLogService changeLogService;
+
+    // The log is append-only, so every test starts after the entries of earlier tests
+    private long since;
+
+    @BeforeEach
+    @Transactional
+    public void setup() {
+        movieSnapshotRepository.deleteAll();
+        movieRepository.deleteAll();
+        actorRepository.deleteAll();
+        since = changeLogRepository.findLastSeq();
+    }
+
+    @Test
+    public void testGetChangesOfMovie() {
+        Long actorId = createTestActor("Test Actor");
+        String movieJson = "{ \"title\": \"Test Movie\", \"releaseYear\": 2020, \"description\": \"A test movie.\", " +
+                "\"cast\": [" + actorId + "] }";
+
+        given().contentType("application/json").body(movieJson.replace("{ ", "{ \"imdbID\": \"tt7000001\", "))
+                .post("/movies").then().statusCode(201);
+        given().contentType("application/json").body(movieJson)
+                .put("/movies/tt7000001").then().statusCode(200);
+        given().delete("/movies/tt7000001").then().statusCode(204);
+
+        JsonPath changes = changesSince(since);
+        assertEquals(List.of("CREATED", "UPDATED", "DELETED"), changes.getList("items.changeType"));
+        assertEquals(List.of("MOVIE", "MOVIE", "MOVIE"), changes.getList("items.entityType"));
+        assertEquals(List.of("tt7000001", "tt7000001", "tt7000001"), changes.getList("items.entityId"));
+        assertEquals(changes.getLong("items[2].seq"), changes.getLong("nextSince"));
+        assertTrue(changes.getLong("items[0].seq") > since);
+    }
+
+    @Test
+    public void testGetChangesOfActor() {
+        Long actorId = createTestActorThroughApi("Test Actor");
+        createTestMovie("tt7000001", actorId);
+        createTestMovie("tt7000002", actorId);
+        Long unreferencedId = createTestActor("Unreferenced Actor");
+
+        JsonPath created = changesSince(since);
+        assertEquals(List.of("ACTOR"), created.getList("items.entityType"));
+        assertEquals(List.of(actorId.toString()), created.getList("items.entityId"));
+        assertEquals(List.of("CREATED"), created.getList("items.changeType"));
+
+        // Movies embed their cast, so an update of the actor is an update of each of the actor's movies
+        given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Renamed Actor\", \"birthdate\": \"1980-01-01\" }")
+                .when()
+                .put("/actors/" + actorId)
+                .then()
+                .statusCode(200);
+        given().delete("/actors/" + unreferencedId).then().statusCode(204);
+
+        JsonPath changes = changesSince(created.getLong("nextSince"));
+        assertEquals(List.of("ACTOR", "MOVIE", "MOVIE", "ACTOR"), changes.getList("items.entityType"));
+        assertEquals(List.of("UPDATED", "UPDATED", "UPDATED", "DELETED"), changes.getList("items.changeType"));
+        assertEquals(actorId.toString(), changes.getString("items[0].entityId"));
+        assertEquals(List.of("tt7000001", "tt7000002"), changes.getList("items.entityId").subList(1, 3).stream().sorted().toList());
+        assertEquals(unreferencedId.toString(), changes.getString("items[3].entityId"));
+    }
+
+    @Test
+    public void testGetChangesOfBulkImportAndCastChange() {
+        Long actorId = createTestActor("Test Actor");
+        String body = "{\"imdbID\": \"tt7000001\", \"title\": \"Bulk One\", \"releaseYear\": 2001, \"description\": \"First.\"}\n" +
+                "{\"imdbID\": \"tt7000002\", \"title\": \"\", \"releaseYear\": 2002, \"description\": \"Rejected.\"}\n" +
+                "{\"imdbID\": \"tt7000003\", \"title\": \"Bulk Three\", \"releaseYear\": 2003, \"description\": \"Third.\"}\n";
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body.getBytes(StandardCharsets.UTF_8))
+                .when()
+                .post("/movies/bulk")
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(2));
+        given()
+                .contentType("application/json")
+                .body("{ \"add\": [" + actorId + "] }")
+                .when()
+                .patch("/movies/tt7000003/cast")
+                .then()
+                .statusCode(200);
+
+        // Only imported rows are logged
+        given()
+                .queryParam("since", since)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items.entityId", contains("tt7000001", "tt7000003", "tt7000003"))
+                .body("items.changeType", contains("CREATED", "CREATED", "UPDATED"));
+    }
+
+    @Test
+    public void testGetChangesInBatches() {
+        createTestActorThroughApi("First");
+        createTestActorThroughApi("Second");
+        createTestActorThroughApi("Third");
+
+        long nextSince = given()
+                .queryParam("since", since)
+                .queryParam("size", 2)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(2))
+                .body("pageSize", equalTo(2))
+                .extract().jsonPath().getLong("nextSince");
+
+        given()
+                .queryParam("since", nextSince)
+                .queryParam("size", 2)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1));
+    }
+
+    @Test
+    public void testLongPollWakesUpOnCommit() throws Exception {
+        long started = System.nanoTime();
+        CompletableFuture<JsonPath> poll = CompletableFuture.supplyAsync(() -> given()
+                .queryParam("since", since)
+                .queryParam("wait", 30)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .extract().jsonPath());
+
+        Thread.sleep(1000);
+        assertFalse(poll.isDone()); // Nothing to return yet, so the poll waits
+        Long actorId = createTestActorThroughApi("Awaited Actor");
+
+        JsonPath changes = poll.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(actorId.toString()), changes.getList("items.entityId"));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(10)); // Woken by the commit, not the timeout
+    }
+
+    @Test
+    public void testLongPollTimesOutWithoutChanges() {
+        given()
+                .queryParam("since", since)
+                .queryParam("wait", 1)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items", empty())
+                .body("nextSince", equalTo((int) since));
+    }
+
+    @Test
+    public void testOpenTransactionHoldsBackLaterChanges() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> open = CompletableFuture.runAsync(() -> QuarkusTransaction.requiringNew().run(() -> {
+            changeLogService.record(EntityType.MOVIE, "tt7000001", ChangeType.UPDATED);
+            recorded.countDown();
+            await(release);
+            QuarkusTransaction.setRollbackOnly();
+        }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+        // The later change commits first, but is held back while the earlier entry may still commit
+        Long actorId = createTestActorThroughApi("Later Actor");
+        given()
+                .queryParam("since", since)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items", empty())
+                .body("nextSince", equalTo((int) since));
+
+        // The rolled-back entry never becomes visible, and the later change is released
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> open.get(10, TimeUnit.SECONDS)); // Rolled back as marked
+        given()
+                .queryParam("since", since)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .body("items.entityType", contains("ACTOR"))
+                .body("items.entityId", contains(actorId.toString()));
+    }
+
+    @Test
+    public void testGetChangesWithInvalidParameters() {
+        given()
+                .queryParam("since", -1)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Since parameter must be a non-negative integer."));
+
+        given()
+                .queryParam("size", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Size parameter must be a positive integer."));
+
+        given()
+                .queryParam("wait", -1)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Wait parameter must be a non-negative integer."));
+    }
+
+    private JsonPath changesSince(long since) {
+        return given()
+                .queryParam("since", since)
+                .queryParam("size", 1000)
+                .queryParam("wait", 0)
+                .when()
+                .get("/changes")
+                .then()
+                .statusCode(200)
+                .extract().jsonPath();
+    }
+
+    private Long createTestActorThroughApi(String name) {
+        return given()
+                .contentType("application/json")
+                .body("{ \"name\": \"" + name + "\", \"birthdate\": \"1980-01-01\" }")
+                .when()
+                .post("/actors")
+                .then()
+                .statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Transactional
+    public Long createTestActor(String name) {
+        Actor actor = new Actor(name, LocalDate.of(1980, 1, 1));
+        actorRepository.persist(actor);
+        return actor.getId();
+    }
+
+    @Transactional
+    public void createTestMovie(String imdbID, Long actorId) {
+        movieRepository.persist(new Movie(imdbID, "Test Movie", 2020, "A test movie.", List.of(),
+                List.of(actorRepository.findById(actorId))));
+    }
+}
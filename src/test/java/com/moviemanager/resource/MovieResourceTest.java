@@ -1,21 +1,34 @@
 package com.moviemanager.resource;
 
+import com.moviemanager.cache.MovieCache;
 import com.moviemanager.entity.Actor;
 import com.moviemanager.entity.Movie;
 import com.moviemanager.repository.ActorRepository;
 import com.moviemanager.repository.MovieRepository;
+import com.moviemanager.repository.MovieSnapshotRepository;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Integration tests for the MovieResource REST endpoints.
@@ -29,6 +42,16 @@ public class MovieResourceTest {
     @Inject
     MovieRepository movieRepository;
 
+    @Inject
+    MovieSnapshotRepository movieSnapshotRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    @CacheName(MovieCache.CACHE_NAME)
+    Cache movieCache;
+
     // Actor IDs after persisting
     private Long actorId1;
     private Long actorId2;
@@ -46,8 +69,10 @@ public class MovieResourceTest {
     @BeforeEach
     @Transactional
     public void resetDatabase() {
+        movieSnapshotRepository.deleteAll();
         movieRepository.deleteAll();
         actorRepository.deleteAll();
+        movieCache.invalidateAll().await().indefinitely();
 
         // Create and persist Actors
         Actor actor1 = new Actor("Tim Robbins", LocalDate.of(1958, 10, 16));
@@ -196,288 +221,1299 @@ public class MovieResourceTest {
     }
 
     @Test
-    public void testCreateMovie() {
-        String movieJson = "{ " +
-                "\"imdbID\": \"tt1234567\", " +
-                "\"title\": \"Test Movie\", " +
-                "\"releaseYear\": 2024, " +
-                "\"description\": \"A test movie description.\", " +
-                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
-                "\"cast\": [" + actorId1 + "] " +
-                "}";
+    public void testGetMoviesByIds() {
+        String body = "{\"ids\": [\"tt1375666\", \"tt9999999\", \"tt0111161\", \"tt1375666\"]}";
+        // The first request renders the missing snapshots
+        given().contentType("application/json").body(body).post("/movies/batch-get").then().statusCode(200);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
 
         given()
                 .contentType("application/json")
-                .body(movieJson)
+                .body(body)
                 .when()
-                .post("/movies")
+                .post("/movies/batch-get")
                 .then()
-                .statusCode(201)
-                .body("imdbID", equalTo("tt1234567"))
-                .body("title", equalTo("Test Movie"))
-                .body("releaseYear", equalTo(2024))
-                .body("description", equalTo("A test movie description."))
-                .body("pictures", hasSize(1))
-                .body("pictures[0]", equalTo("http://example.com/testmovie.jpg"))
-                .body("cast", hasSize(1))
-                .body("cast.name", hasItem("Tim Robbins"));
-    }
+                .statusCode(200)
+                .body("items", hasSize(4))
+                .body("items[0].title", equalTo("Inception"))
+                .body("items[1]", nullValue())
+                .body("items[2].title", equalTo("The Shawshank Redemption"))
+                .body("items[2].cast.name", hasItems("Tim Robbins", "Morgan Freeman"))
+                .body("items[3].imdbID", equalTo("tt1375666"))
+                .body("missing", contains("tt9999999"));
 
-    @Test
-    public void testUpdateMovie() {
-        String updatedMovieJson = "{ " +
-                "\"title\": \"The Shawshank Redemption - Updated\", " +
-                "\"releaseYear\": 1995, " +
-                "\"description\": \"Updated description.\", " +
-                "\"pictures\": [\"http://example.com/updatedpicture.jpg\"], " +
-                "\"cast\": [" + actorId1 + ", " + actorId2 + "] " +
-                "}";
+        // Found and unknown movies alike are served from the cache
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        movieCache.invalidateAll().await().indefinitely();
+        statistics.clear();
 
         given()
                 .contentType("application/json")
-                .body(updatedMovieJson)
-                .pathParam("imdbID", "tt0111161")
+                .body(body)
                 .when()
-                .put("/movies/{imdbID}")
+                .post("/movies/batch-get")
                 .then()
                 .statusCode(200)
-                .body("imdbID", equalTo("tt0111161"))
-                .body("title", equalTo("The Shawshank Redemption - Updated"))
-                .body("releaseYear", equalTo(1995))
-                .body("description", equalTo("Updated description."))
-                .body("pictures", hasSize(1))
-                .body("pictures[0]", equalTo("http://example.com/updatedpicture.jpg"))
-                .body("cast", hasSize(2))
-                .body("cast.name", hasItems("Tim Robbins", "Morgan Freeman"));
+                .body("items", hasSize(4))
+                .body("items[1]", nullValue())
+                .body("items[2].imdbID", equalTo("tt0111161"))
+                .body("missing", contains("tt9999999"));
+
+        // One query for all snapshots instead of one lookup per movie, and none for the unknown one
+        assertEquals(1, statistics.getPrepareStatementCount());
     }
 
     @Test
-    public void testDeleteMovie() {
+    public void testGetMoviesByIdsWithoutIds() {
         given()
-                .pathParam("imdbID", "tt0111161")
+                .contentType("application/json")
+                .body("{\"ids\": []}")
                 .when()
-                .delete("/movies/{imdbID}")
+                .post("/movies/batch-get")
                 .then()
-                .statusCode(204);
+                .statusCode(400)
+                .body("message", equalTo("Body must list the IMDb IDs of the movies."));
+    }
+
+    @Test
+    public void testGetMovieByIdServedFromCache() {
+        given().get("/movies/tt0111161").then().statusCode(200);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
 
-        // Verify the movie is deleted
         given()
                 .pathParam("imdbID", "tt0111161")
                 .when()
                 .get("/movies/{imdbID}")
                 .then()
-                .statusCode(404)
-                .body("message", equalTo("Movie not found."));
-    }
+                .statusCode(200)
+                .body("title", equalTo("The Shawshank Redemption"));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
 
-    @Test
-    public void testSearchMoviesByTitle() {
         given()
-                .queryParam("title", "Godfather")
                 .when()
-                .get("/movies/search")
+                .get("/q/metrics")
                 .then()
                 .statusCode(200)
-                .body("$", hasSize(1))
-                .body("[0].imdbID", equalTo("tt0068646"))
-                .body("[0].title", equalTo("The Godfather"));
+                .body(containsString("cache_gets_total{cache=\"movie-by-id\",result=\"hit\"}"));
     }
 
     @Test
-    public void testGetAllMoviesWithoutPagination() {
+    public void testCachedMovieReflectsActorUpdate() {
+        given().get("/movies/tt0111161").then().statusCode(200);
+
         given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Timothy Robbins\", \"birthdate\": \"1958-10-16\" }")
+                .pathParam("id", actorId1)
                 .when()
-                .get("/movies")
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200);
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
                 .then()
                 .statusCode(200)
-                .body("$", hasSize(8))
-                .body("imdbID", hasItems(
-                        "tt0111161", "tt0068646", "tt1375666",
-                        "tt0108052", "tt0167260", "tt0080684",
-                        "tt0137523", "tt0120737"));
+                .body("cast.name", hasItems("Timothy Robbins", "Morgan Freeman"));
     }
 
     @Test
-    public void testGetAllMoviesPaginationFirstPage() {
+    public void testCachedMovieReflectsUpdate() {
+        given().get("/movies/tt0111161").then().statusCode(200);
+
+        String updatedMovieJson = "{ " +
+                "\"title\": \"The Shawshank Redemption - Updated\", " +
+                "\"releaseYear\": 1995, " +
+                "\"description\": \"Updated description.\", " +
+                "\"pictures\": [], " +
+                "\"cast\": [" + actorId1 + "] " +
+                "}";
+
         given()
+                .contentType("application/json")
+                .body(updatedMovieJson)
+                .pathParam("imdbID", "tt0111161")
                 .when()
-                .get("/movies?page=1&size=5")
+                .put("/movies/{imdbID}")
+                .then()
+                .statusCode(200);
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
                 .then()
                 .statusCode(200)
-                .body("items", hasSize(5))
-                .body("items.imdbID", hasItems(
-                        "tt0111161", "tt0068646", "tt1375666",
-                        "tt0108052", "tt0167260"))
-                .body("currentPage", equalTo(1))
-                .body("pageSize", equalTo(5))
-                .body("totalItems", equalTo(8))
-                .body("totalPages", equalTo(2));
+                .body("title", equalTo("The Shawshank Redemption - Updated"))
+                .body("cast", hasSize(1));
     }
 
     @Test
-    public void testGetAllMoviesPaginationSecondPage() {
+    public void testCreateMovie() {
+        String movieJson = "{ " +
+                "\"imdbID\": \"tt1234567\", " +
+                "\"title\": \"Test Movie\", " +
+                "\"releaseYear\": 2024, " +
+                "\"description\": \"A test movie description.\", " +
+                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
+                "\"cast\": [" + actorId1 + "] " +
+                "}";
+
         given()
+                .contentType("application/json")
+                .body(movieJson)
                 .when()
-                .get("/movies?page=2&size=5")
+                .post("/movies")
                 .then()
-                .statusCode(200)
-                .body("items", hasSize(3))
-                .body("items.imdbID", hasItems(
-                        "tt0080684", "tt0137523", "tt0120737"))
-                .body("currentPage", equalTo(2))
-                .body("pageSize", equalTo(5))
-                .body("totalItems", equalTo(8))
-                .body("totalPages", equalTo(2));
+                .statusCode(201)
+                .body("imdbID", equalTo("tt1234567"))
+                .body("title", equalTo("Test Movie"))
+                .body("releaseYear", equalTo(2024))
+                .body("description", equalTo("A test movie description."))
+                .body("pictures", hasSize(1))
+                .body("pictures[0]", equalTo("http://example.com/testmovie.jpg"))
+                .body("cast", hasSize(1))
+                .body("cast.name", hasItem("Tim Robbins"));
     }
 
     @Test
-    public void testGetAllMoviesPaginationExceedingMaxSize() {
-        given()
+    public void testCreateAndUpdateReturnTheDocumentOfGet() {
+        // Pictures and cast out of order, as the stored sets would keep them
+        String created = given()
+                .contentType("application/json")
+                .body("{ \"imdbID\": \"tt7654321\", \"title\": \"Ordered\", \"releaseYear\": 2020, " +
+                        "\"description\": \"Ordered representation.\", " +
+                        "\"pictures\": [\"http://example.com/b.jpg\", \"http://example.com/a.jpg\"], " +
+                        "\"cast\": [" + actorId2 + ", " + actorId1 + "] }")
                 .when()
-                .get("/movies?page=1&size=200")
+                .post("/movies")
+                .then()
+                .statusCode(201)
+                .body("pictures", contains("http://example.com/a.jpg", "http://example.com/b.jpg"))
+                .body("cast.id", contains(actorId1.intValue(), actorId2.intValue()))
+                .extract().asString();
+        assertEquals(created, given().get("/movies/tt7654321").then().statusCode(200).extract().asString());
+
+        String updated = given()
+                .contentType("application/json")
+                .body("{ \"title\": \"Ordered\", \"releaseYear\": 2020, " +
+                        "\"description\": \"Ordered representation.\", " +
+                        "\"pictures\": [\"http://example.com/b.jpg\", \"http://example.com/0.jpg\"], " +
+                        "\"cast\": [" + actorId3 + ", " + actorId1 + "] }")
+                .when()
+                .put("/movies/tt7654321")
                 .then()
                 .statusCode(200)
-                .body("items", hasSize(8))
-                .body("currentPage", equalTo(1))
-                .body("pageSize", equalTo(100))
-                .body("totalItems", equalTo(8))
-                .body("totalPages", equalTo(1));
+                .body("pictures", contains("http://example.com/0.jpg", "http://example.com/b.jpg"))
+                .body("cast.id", contains(actorId1.intValue(), actorId3.intValue()))
+                .extract().asString();
+        assertEquals(updated, given().get("/movies/tt7654321").then().statusCode(200).extract().asString());
     }
 
     @Test
-    public void testGetAllMoviesPaginationInvalidParameters() {
+    public void testCreateMovieWithDuplicatePictures() {
         given()
+                .contentType("application/json")
+                .body("{ \"imdbID\": \"tt7654321\", \"title\": \"Duplicates\", \"releaseYear\": 2020, " +
+                        "\"description\": \"Same picture twice.\", " +
+                        "\"pictures\": [\"http://example.com/a.jpg\", \"http://example.com/a.jpg\"] }")
                 .when()
-                .get("/movies?page=0&size=0")
+                .post("/movies")
                 .then()
                 .statusCode(400)
-                .body("message", equalTo("Page and size parameters must be positive integers."));
+                .body("errors", hasItem("Pictures cannot contain duplicates"));
     }
 
     @Test
-    public void testSearchMoviesByYear() {
+    public void testCreateMovieResolvesCastFromSecondLevelCache() {
+        String movieJson = "{ \"imdbID\": \"%s\", \"title\": \"Test Movie\", \"releaseYear\": 2024, " +
+                "\"description\": \"A test movie description.\", \"cast\": [" + actorId1 + ", " + actorId2 + "] }";
+        // The first movie loads the actors and puts them into the second-level cache
+        given().contentType("application/json").body(movieJson.formatted("tt1234567")).post("/movies").then().statusCode(201);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
         given()
-                .queryParam("year", 1994)
+                .contentType("application/json")
+                .body(movieJson.formatted("tt7654321"))
                 .when()
-                .get("/movies/search")
+                .post("/movies")
                 .then()
-                .statusCode(200)
-                .body("$", hasSize(1))
-                .body("[0].imdbID", equalTo("tt0111161"))
-                .body("[0].title", equalTo("The Shawshank Redemption"));
+                .statusCode(201)
+                .body("cast.name", hasItems("Tim Robbins", "Morgan Freeman"));
+
+        assertEquals(2, statistics.getEntityStatistics(Actor.class.getName()).getCacheHitCount());
+        assertEquals(0, statistics.getEntityStatistics(Actor.class.getName()).getLoadCount());
+        // Inserts of the movie, its cast, its snapshot and its change log entry, without any lookup
+        assertEquals(4, statistics.getPrepareStatementCount());
     }
 
     @Test
-    public void testSearchMoviesByTitleAndYear() {
+    public void testRequestMetrics() {
+        given().pathParam("imdbID", "tt0111161").get("/movies/{imdbID}").then().statusCode(200);
+        given().pathParam("imdbID", "tt9999999").get("/movies/{imdbID}").then().statusCode(404);
+
         given()
-                .queryParam("title", "The Lord of the Rings")
-                .queryParam("year", 2003)
                 .when()
-                .get("/movies/search")
+                .get("/q/metrics")
                 .then()
                 .statusCode(200)
-                .body("$", hasSize(1))
-                .body("[0].imdbID", equalTo("tt0167260"))
-                .body("[0].title", equalTo("The Lord of the Rings: The Return of the King"));
+                .body(containsString("http_server_requests_seconds_bucket{method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/movies/{imdbID}\""))
+                .body(containsString("http_server_requests_seconds_count{method=\"GET\",outcome=\"CLIENT_ERROR\",status=\"404\",uri=\"/movies/{imdbID}\"}"))
+                .body(containsString("http_server_requests_statements_bucket{resource=\"MovieResource.getMovieById\",status=\"200\""))
+                .body(containsString("agroal_active_count"))
+                .body(containsString("hibernate_entities_loads_total"));
     }
 
     @Test
-    public void testSearchMoviesWithoutParameters() {
+    public void testBulkImportNdjson() {
+        String body = "{\"imdbID\": \"tt2000001\", \"title\": \"Bulk One\", \"releaseYear\": 2001, " +
+                "\"description\": \"First.\", \"pictures\": [\"http://example.com/one.jpg\"], \"cast\": [" + actorId1 + "]}\n" +
+                "{\"imdbID\": \"tt0111161\", \"title\": \"Existing\", \"releaseYear\": 1994, " +
+                "\"description\": \"Already there.\"}\n" +
+                "\n" +
+                "not json\n" +
+                "{\"imdbID\": \"tt2000002\", \"title\": \"\", \"releaseYear\": 2002, \"description\": \"Second.\"}\n" +
+                "{\"imdbID\": \"tt2000003\", \"title\": \"Bulk Three\", \"releaseYear\": 2003, " +
+                "\"description\": \"Third.\", \"cast\": [9999]}\n" +
+                "{\"imdbID\": \"tt2000004\", \"title\": \"Bulk Four\", \"releaseYear\": 2004, " +
+                "\"description\": \"Fourth.\", \"cast\": [" + actorId2 + ", " + actorId3 + "]}\n";
+
         given()
+                .contentType("application/x-ndjson")
+                .body(body.getBytes(StandardCharsets.UTF_8))
                 .when()
-                .get("/movies/search")
+                .post("/movies/bulk")
                 .then()
                 .statusCode(200)
-                .body("$", hasSize(8))
-                .body("imdbID", hasItems(
-                        "tt0111161", "tt0068646", "tt1375666",
-                        "tt0108052", "tt0167260", "tt0080684",
-                        "tt0137523", "tt0120737"));
+                .body("imported", equalTo(2))
+                .body("failed", equalTo(4))
+                .body("errors.row", contains(2, 4, 5, 6))
+                .body("errors[0].messages", contains("Movie with this IMDb ID already exists."))
+                .body("errors[1].messages", contains("Row is not a valid movie."))
+                .body("errors[2].messages", contains("Title cannot be blank"))
+                .body("errors[3].messages", contains("One or more actors not found."));
+
+        given()
+                .pathParam("imdbID", "tt2000004")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("title", equalTo("Bulk Four"))
+                .body("cast.name", hasItems("Morgan Freeman", "Leonardo DiCaprio"));
     }
 
     @Test
-    public void testCreateMovieWithMissingFields() {
-        String movieJson = "{ " +
-                "\"imdbID\": \"\", " +
-                "\"title\": \"\", " +
-                "\"releaseYear\": 2024, " +
-                "\"description\": \"\", " +
-                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
-                "\"cast\": [" + actorId1 + "] " +
-                "}";
+    public void testBulkImportJsonArrayAcrossChunks() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1200; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"imdbID\": \"tt3").append(String.format("%06d", i))
+                    .append("\", \"title\": \"Bulk ").append(i)
+                    .append("\", \"releaseYear\": 2020, \"description\": \"Bulk movie.\", \"cast\": [")
+                    .append(actorId1).append("]}");
+        }
+        body.append(",42]");
 
         given()
                 .contentType("application/json")
-                .body(movieJson)
+                .body(body.toString())
                 .when()
-                .post("/movies")
+                .post("/movies/bulk")
                 .then()
-                .statusCode(400)
-                .body("errors", hasItems(
-                        "IMDB ID cannot be blank",
-                        "Title cannot be blank",
-                        "Description cannot be blank"
-                ));
-    }
+                .statusCode(200)
+                .body("imported", equalTo(1200))
+                .body("failed", equalTo(1))
+                .body("errors[0].row", equalTo(1201))
+                .body("errors[0].messages", contains("Row must be a JSON object."));
 
-    @Test
-    public void testGetNonExistentMovie() {
         given()
-                .pathParam("imdbID", "nonexistent")
                 .when()
-                .get("/movies/{imdbID}")
+                .get("/movies?page=1&size=1")
                 .then()
-                .statusCode(404)
-                .body("message", equalTo("Movie not found."));
+                .statusCode(200)
+                .body("totalItems", equalTo(1208));
     }
 
     @Test
-    public void testCreateMovieWithNonExistentActors() {
-        String movieJson = "{ " +
-                "\"imdbID\": \"tt9999999\", " +
-                "\"title\": \"Movie with Non-Existent Actors\", " +
-                "\"releaseYear\": 2024, " +
-                "\"description\": \"A movie that references actors that do not exist.\", " +
-                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
-                "\"cast\": [9999, 8888] " +
-                "}";
+    public void testBulkImportJsonArrayWithSyntaxError() {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 600; i++) {
+            body.append("{\"imdbID\": \"tt4").append(String.format("%06d", i))
+                    .append("\", \"title\": \"Bulk ").append(i)
+                    .append("\", \"releaseYear\": 2020, \"description\": \"Bulk movie.\"},");
+        }
+        body.append("{\"imdbID\": \"tt4000600\", \"title\": ]");
 
+        // The first chunk is committed before the error is read, and the rows after it are kept too
         given()
                 .contentType("application/json")
-                .body(movieJson)
+                .body(body.toString())
                 .when()
-                .post("/movies")
+                .post("/movies/bulk")
                 .then()
-                .statusCode(400)
-                .body("message", equalTo("One or more actors not found."));
+                .statusCode(200)
+                .body("imported", equalTo(600))
+                .body("failed", equalTo(1))
+                .body("errors[0].row", equalTo(601))
+                .body("errors[0].messages", contains("Row is not valid JSON, the rest of the body was not read."));
     }
 
     @Test
-    public void testUpdateMovieWithNonExistentActors() {
-        String movieJson = "{ " +
-                "\"title\": \"Updated Movie\", " +
-                "\"releaseYear\": 1995, " +
-                "\"description\": \"Updated description.\", " +
-                "\"pictures\": [\"http://example.com/updatedpicture.jpg\"], " +
-                "\"cast\": [9999, 8888] " +
-                "}";
+    public void testBulkImportNdjsonWithSyntaxError() {
+        String body = "{\"imdbID\": \"tt2000001\", \"title\": ]\n" +
+                "{\"imdbID\": \"tt2000002\", \"title\": \"Bulk Two\", \"releaseYear\": 2002, \"description\": \"Second.\"}\n";
 
         given()
-                .contentType("application/json")
-                .body(movieJson)
-                .pathParam("imdbID", "tt0111161")
+                .contentType("application/x-ndjson")
+                .body(body.getBytes(StandardCharsets.UTF_8))
                 .when()
-                .put("/movies/{imdbID}")
+                .post("/movies/bulk")
                 .then()
-                .statusCode(400)
-                .body("message", equalTo("One or more actors not found."));
+                .statusCode(200)
+                .body("imported", equalTo(1))
+                .body("failed", equalTo(1))
+                .body("errors[0].row", equalTo(1))
+                .body("errors[0].messages", contains("Row is not a valid movie."));
     }
 
     @Test
-    public void testGetAllMoviesPaginationInvalidParameters2() {
+    public void testBulkImportMalformedBody() {
         given()
+                .contentType("application/json")
+                .body("{\"imdbID\": \"tt2000001\"}")
                 .when()
-                .get("/movies?page=-1&size=-5")
+                .post("/movies/bulk")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Body must be a JSON array of movies or newline-delimited JSON."));
+    }
+
+    @Test
+    public void testUpdateMovie() {
+        String updatedMovieJson = "{ " +
+                "\"title\": \"The Shawshank Redemption - Updated\", " +
+                "\"releaseYear\": 1995, " +
+                "\"description\": \"Updated description.\", " +
+                "\"pictures\": [\"http://example.com/updatedpicture.jpg\"], " +
+                "\"cast\": [" + actorId1 + ", " + actorId2 + "] " +
+                "}";
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .contentType("application/json")
+                .body(updatedMovieJson)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .put("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("imdbID", equalTo("tt0111161"))
+                .body("title", equalTo("The Shawshank Redemption - Updated"))
+                .body("releaseYear", equalTo(1995))
+                .body("description", equalTo("Updated description."))
+                .body("pictures", hasSize(1))
+                .body("pictures[0]", equalTo("http://example.com/updatedpicture.jpg"))
+                .body("cast", hasSize(2))
+                .body("cast.name", hasItems("Tim Robbins", "Morgan Freeman"));
+
+        // The collections are changed in place instead of being deleted and inserted again
+        assertEquals(0, statistics.getCollectionStatistics(Movie.class.getName() + ".cast").getRecreateCount());
+        assertEquals(0, statistics.getCollectionStatistics(Movie.class.getName() + ".cast").getUpdateCount());
+        assertEquals(0, statistics.getCollectionStatistics(Movie.class.getName() + ".pictures").getRecreateCount());
+        assertEquals(1, statistics.getCollectionStatistics(Movie.class.getName() + ".pictures").getUpdateCount());
+    }
+
+    @Test
+    public void testUpdateMovieCast() {
+        String eTag = given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body("{ \"add\": [" + actorId3 + "], \"remove\": [" + actorId2 + "] }")
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .patch("/movies/{imdbID}/cast")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(eTag)))
+                .body("cast.id", containsInAnyOrder(actorId1.intValue(), actorId3.intValue()));
+
+        // One row deleted and one inserted, the other rows of the cast are left alone
+        assertEquals(0, statistics.getCollectionStatistics(Movie.class.getName() + ".cast").getRecreateCount());
+        assertEquals(1, statistics.getCollectionStatistics(Movie.class.getName() + ".cast").getUpdateCount());
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("cast.id", contains(actorId1.intValue(), actorId3.intValue()));
+
+        // The ETag read before the change no longer matches
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body("{ \"add\": [" + actorId4 + "] }")
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .patch("/movies/{imdbID}/cast")
+                .then()
+                .statusCode(412);
+    }
+
+    @Test
+    public void testUpdateMovieCastWithInvalidChanges() {
+        given()
+                .contentType("application/json")
+                .body("{ \"add\": [" + actorId3 + "], \"remove\": [" + actorId3 + "] }")
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .patch("/movies/{imdbID}/cast")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("An actor cannot be both added and removed."));
+
+        given()
+                .contentType("application/json")
+                .body("{ \"add\": [9999] }")
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .patch("/movies/{imdbID}/cast")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("One or more actors not found."));
+
+        given()
+                .contentType("application/json")
+                .body("{ \"remove\": [" + actorId1 + "] }")
+                .pathParam("imdbID", "tt9999999")
+                .when()
+                .patch("/movies/{imdbID}/cast")
+                .then()
+                .statusCode(404)
+                .body("message", equalTo("Movie not found."));
+    }
+
+    @Test
+    public void testGetMovieByIdNotModified() {
+        String eTag = given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .header("Last-Modified", notNullValue())
+                .extract()
+                .header("ETag");
+        movieCache.invalidateAll().await().indefinitely();
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .header("If-None-Match", eTag)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(304)
+                .header("ETag", equalTo(eTag));
+
+        // Version only
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testUpdateMovieWithIfMatch() {
+        String eTag = given().get("/movies/tt0111161").then().statusCode(200).extract().header("ETag");
+        String updatedMovieJson = "{ " +
+                "\"title\": \"The Shawshank Redemption - Updated\", " +
+                "\"releaseYear\": 1995, " +
+                "\"description\": \"Updated description.\", " +
+                "\"pictures\": [], " +
+                "\"cast\": [" + actorId1 + "] " +
+                "}";
+
+        String updatedETag = given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body(updatedMovieJson)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .put("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(eTag)))
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", updatedETag)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(304);
+
+        // A second update based on the original representation is rejected
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body(updatedMovieJson)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .put("/movies/{imdbID}")
+                .then()
+                .statusCode(412)
+                .body("message", equalTo("Movie was modified since it was retrieved."));
+    }
+
+    @Test
+    public void testActorUpdateChangesMovieETag() {
+        String eTag = given().get("/movies/tt0111161").then().statusCode(200).extract().header("ETag");
+
+        given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Timothy Robbins\", \"birthdate\": \"1958-10-16\" }")
+                .pathParam("id", actorId1)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200);
+
+        given()
+                .header("If-None-Match", eTag)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(eTag)))
+                .body("cast.name", hasItems("Timothy Robbins", "Morgan Freeman"));
+    }
+
+    @Test
+    public void testActorUpdateKeepsOtherCastsCached() {
+        Statistics statistics = sessionFactory.getStatistics();
+        String castRole = Movie.class.getName() + ".cast";
+        QuarkusTransaction.requiringNew().run(() -> movieRepository.findById("tt0068646").getCast().size());
+
+        given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Timothy Robbins\", \"birthdate\": \"1958-10-16\" }")
+                .pathParam("id", actorId1)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200);
+
+        // Only the changed movies are touched, so the cast of a movie without the actor stays cached
+        statistics.clear();
+        QuarkusTransaction.requiringNew().run(() -> movieRepository.findById("tt0068646").getCast().size());
+        assertEquals(1, statistics.getCollectionStatistics(castRole).getCacheHitCount());
+    }
+
+    @Test
+    public void testDeleteMovie() {
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .delete("/movies/{imdbID}")
+                .then()
+                .statusCode(204);
+
+        // Verify the movie is deleted
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(404)
+                .body("message", equalTo("Movie not found."));
+    }
+
+    @Test
+    public void testSearchMoviesByTitle() {
+        given()
+                .queryParam("title", "Godfather")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt0068646"))
+                .body("items[0].title", equalTo("The Godfather"));
+    }
+
+    @Test
+    public void testGetAllMoviesWithoutPagination() {
+        given()
+                .when()
+                .get("/movies")
+                .then()
+                .statusCode(200)
+                .body("$", hasSize(8))
+                .body("imdbID", hasItems(
+                        "tt0111161", "tt0068646", "tt1375666",
+                        "tt0108052", "tt0167260", "tt0080684",
+                        "tt0137523", "tt0120737"));
+    }
+
+    @Test
+    public void testStreamAllMoviesAsNdjson() {
+        createAdditionalMovies(600); // More than one streaming batch
+
+        String body = given()
+                .accept("application/x-ndjson")
+                .when()
+                .get("/movies")
+                .then()
+                .statusCode(200)
+                .contentType(startsWith("application/x-ndjson"))
+                .extract().asString();
+
+        String[] lines = body.split("\n");
+        assertEquals(608, lines.length);
+        assertEquals("tt0068646", JsonPath.from(lines[0]).getString("imdbID"));
+        assertEquals("The Godfather", JsonPath.from(lines[0]).getString("title"));
+        assertEquals(2, JsonPath.from(lines[0]).getList("cast").size());
+
+        // Statements issued while the body is streamed are attributed to the request
+        String metrics = given().get("/q/metrics").then().statusCode(200).extract().asString();
+        Matcher statements = Pattern.compile(
+                "http_server_requests_statements_sum\\{resource=\"MovieResource.streamMovies\",status=\"200\"} (\\S+)")
+                .matcher(metrics);
+        assertTrue(statements.find());
+        assertTrue(Double.parseDouble(statements.group(1)) >= 2); // At least one query per batch
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationFirstPage() {
+        given()
+                .when()
+                .get("/movies?page=1&size=5")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(5))
+                .body("items.imdbID", hasItems(
+                        "tt0111161", "tt0068646", "tt1375666",
+                        "tt0108052", "tt0167260"))
+                .body("currentPage", equalTo(1))
+                .body("pageSize", equalTo(5))
+                .body("totalItems", equalTo(8))
+                .body("totalPages", equalTo(2));
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationSecondPage() {
+        given()
+                .when()
+                .get("/movies?page=2&size=5")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(3))
+                .body("items.imdbID", hasItems(
+                        "tt0080684", "tt0137523", "tt0120737"))
+                .body("currentPage", equalTo(2))
+                .body("pageSize", equalTo(5))
+                .body("totalItems", equalTo(8))
+                .body("totalPages", equalTo(2));
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationExceedingMaxSize() {
+        given()
+                .when()
+                .get("/movies?page=1&size=200")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(8))
+                .body("currentPage", equalTo(1))
+                .body("pageSize", equalTo(100))
+                .body("totalItems", equalTo(8))
+                .body("totalPages", equalTo(1));
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationInvalidParameters() {
+        given()
+                .when()
+                .get("/movies?page=0&size=0")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Page and size parameters must be positive integers."));
+    }
+
+    @Test
+    public void testGetAllMoviesCursorPagination() {
+        String nextCursor = given()
+                .when()
+                .get("/movies?after=&size=5")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains(
+                        "tt0068646", "tt0080684", "tt0108052",
+                        "tt0111161", "tt0120737"))
+                .body("pageSize", equalTo(5))
+                .body("nextCursor", notNullValue())
+                .body("totalItems", nullValue())
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("after", nextCursor)
+                .queryParam("size", 5)
+                .queryParam("includeTotal", true)
+                .when()
+                .get("/movies")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0137523", "tt0167260", "tt1375666"))
+                .body("nextCursor", nullValue())
+                .body("totalItems", equalTo(8));
+    }
+
+    @Test
+    public void testGetAllMoviesCursorPaginationInvalidCursor() {
+        given()
+                .when()
+                .get("/movies?after=!!!&size=5")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Invalid cursor."));
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationStatementCount() {
+        createAdditionalMovies(40);
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .when()
+                .get("/movies?page=1&size=50")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(48))
+                .body("items.cast.name", everyItem(not(empty())))
+                .body("items.pictures", everyItem(not(empty())));
+
+        // Count, page, cast and pictures, independent of the page size
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetAllMoviesStatementCount() {
+        createAdditionalMovies(40);
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .when()
+                .get("/movies")
+                .then()
+                .statusCode(200)
+                .body("$", hasSize(48));
+
+        // Movies, cast and pictures
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetMovieByIdStatementCount() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("cast", hasSize(2))
+                .body("pictures", hasSize(2));
+
+        // Missing snapshot, then version, movie, pictures and cast, then the stored snapshot
+        assertEquals(6, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testGetMovieByIdServedFromSnapshot() {
+        given().get("/movies/tt0111161").then().statusCode(200);
+        movieCache.invalidateAll().await().indefinitely();
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("title", equalTo("The Shawshank Redemption"))
+                .body("cast.name", hasItems("Tim Robbins", "Morgan Freeman"));
+
+        // Pre-rendered snapshot only
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testMovieSnapshotReflectsActorUpdate() {
+        given().get("/movies/tt0111161").then().statusCode(200);
+
+        given()
+                .contentType("application/json")
+                .body("{ \"name\": \"Timothy Robbins\", \"birthdate\": \"1958-10-16\" }")
+                .pathParam("id", actorId1)
+                .when()
+                .put("/actors/{id}")
+                .then()
+                .statusCode(200);
+        movieCache.invalidateAll().await().indefinitely();
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("cast.name", hasItems("Timothy Robbins", "Morgan Freeman"));
+
+        // Regenerated by the actor update, so no rendering on read
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testSearchMoviesByYear() {
+        given()
+                .queryParam("year", 1994)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt0111161"))
+                .body("items[0].title", equalTo("The Shawshank Redemption"));
+    }
+
+    @Test
+    public void testSearchMoviesByTitleAndYear() {
+        given()
+                .queryParam("title", "The Lord of the Rings")
+                .queryParam("year", 2003)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt0167260"))
+                .body("items[0].title", equalTo("The Lord of the Rings: The Return of the King"));
+    }
+
+    @Test
+    public void testSearchMoviesByTitlePrefix() {
+        given()
+                .queryParam("title", "godf")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt0068646"));
+    }
+
+    @Test
+    public void testSearchMoviesByTitleWithTypo() {
+        given()
+                .queryParam("title", "Incepton")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt1375666"));
+    }
+
+    @Test
+    public void testSearchMoviesFullTextRankedByRelevance() {
+        given()
+                .queryParam("q", "ring")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(2))
+                // "ring" occurs in both titles, and also in the description of The Fellowship of the Ring
+                .body("items[0].imdbID", equalTo("tt0120737"))
+                .body("items[1].imdbID", equalTo("tt0167260"));
+    }
+
+    @Test
+    public void testSearchMoviesFullTextInDescription() {
+        given()
+                .queryParam("q", "dream")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(1))
+                .body("items[0].imdbID", equalTo("tt1375666"));
+    }
+
+    @Test
+    public void testSearchReflectsCreatedAndDeletedMovies() {
+        String movieJson = "{ " +
+                "\"imdbID\": \"tt1234567\", " +
+                "\"title\": \"Searchable Movie\", " +
+                "\"releaseYear\": 2024, " +
+                "\"description\": \"A movie about a lighthouse keeper.\", " +
+                "\"pictures\": [], " +
+                "\"cast\": [] " +
+                "}";
+
+        given()
+                .contentType("application/json")
+                .body(movieJson)
+                .when()
+                .post("/movies")
+                .then()
+                .statusCode(201);
+
+        given()
+                .queryParam("q", "lighthouse")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt1234567"));
+
+        given()
+                .pathParam("imdbID", "tt1234567")
+                .when()
+                .delete("/movies/{imdbID}")
+                .then()
+                .statusCode(204);
+
+        given()
+                .queryParam("q", "lighthouse")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", empty());
+    }
+
+    @Test
+    public void testSearchMoviesWithoutParameters() {
+        given()
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items", hasSize(8))
+                .body("items.imdbID", hasItems(
+                        "tt0111161", "tt0068646", "tt1375666",
+                        "tt0108052", "tt0167260", "tt0080684",
+                        "tt0137523", "tt0120737"));
+    }
+
+    @Test
+    public void testSearchMoviesByYearRangeSortedByYearDescending() {
+        given()
+                .queryParam("yearFrom", 1990)
+                .queryParam("yearTo", 2001)
+                .queryParam("sort", "-year")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0120737", "tt0137523", "tt0111161", "tt0108052"))
+                .body("nextCursor", nullValue());
+
+        // The second page continues right after the last movie of the first one
+        String cursor = given()
+                .queryParam("yearFrom", 1990)
+                .queryParam("yearTo", 2001)
+                .queryParam("sort", "-year")
+                .queryParam("size", 2)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0120737", "tt0137523"))
+                .extract().path("nextCursor");
+
+        given()
+                .queryParam("yearFrom", 1990)
+                .queryParam("yearTo", 2001)
+                .queryParam("sort", "-year")
+                .queryParam("size", 2)
+                .queryParam("after", cursor)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0111161", "tt0108052"));
+    }
+
+    @Test
+    public void testSearchMoviesByActors() {
+        given()
+                .queryParam("actor", actorId3)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.title", contains("Inception", "The Godfather"));
+
+        // Every given actor must be part of the cast
+        given()
+                .queryParam("actor", actorId3)
+                .queryParam("actor", actorId4)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0068646"));
+    }
+
+    @Test
+    public void testSearchMoviesByTitlePrefixWithCursor() {
+        String nextCursor = given()
+                .queryParam("titlePrefix", "The")
+                .queryParam("size", 2)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0068646", "tt0120737"))
+                .body("pageSize", equalTo(2))
+                .body("nextCursor", notNullValue())
+                .extract()
+                .path("nextCursor");
+
+        given()
+                .queryParam("titlePrefix", "The")
+                .queryParam("size", 2)
+                .queryParam("after", nextCursor)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0167260", "tt0111161"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testSearchMoviesFullTextWithFiltersAndCursor() {
+        given()
+                .queryParam("q", "ring")
+                .queryParam("yearFrom", 2002)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0167260"));
+
+        String nextCursor = given()
+                .queryParam("q", "ring")
+                .queryParam("size", 1)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0120737"))
+                .extract()
+                .path("nextCursor");
+
+        given()
+                .queryParam("q", "ring")
+                .queryParam("size", 1)
+                .queryParam("after", nextCursor)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt0167260"))
+                .body("nextCursor", nullValue());
+    }
+
+    @Test
+    public void testSearchMoviesFullTextReachesFilteredMatchesBelowTopHits() {
+        createTreasureMovies(1100); // Better text matches than the movie below, and more than the hits read per round
+        createTestMovie("tt8000000", "Quiet Harbor", 1952, "A fisherman keeps a treasure.", actorId6);
+
+        // The year range is applied by the index
+        given()
+                .queryParam("q", "treasure")
+                .queryParam("yearFrom", 1950)
+                .queryParam("yearTo", 1955)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt8000000"))
+                .body("nextCursor", nullValue());
+
+        // The actor is filtered by the database, which keeps reading hits until the page is full
+        given()
+                .queryParam("q", "treasure")
+                .queryParam("actor", actorId6)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt8000000"))
+                .body("nextCursor", nullValue())
+                .body("truncated", equalTo(false));
+
+        // Sorted by year, only the best hits are ordered, and the response says so
+        given()
+                .queryParam("q", "treasure")
+                .queryParam("sort", "year")
+                .queryParam("size", 1)
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(200)
+                .body("items.imdbID", contains("tt7000000"))
+                .body("truncated", equalTo(true));
+    }
+
+    @Test
+    public void testSearchMoviesWithInvalidParameters() {
+        given()
+                .queryParam("sort", "rating")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Sort parameter must be one of title, -title, year and -year."));
+
+        given()
+                .queryParam("sort", "year")
+                .queryParam("after", "bm90LWEta2V5")
+                .when()
+                .get("/movies/search")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Invalid cursor."));
+    }
+
+    @Test
+    public void testCreateMovieWithMissingFields() {
+        String movieJson = "{ " +
+                "\"imdbID\": \"\", " +
+                "\"title\": \"\", " +
+                "\"releaseYear\": 2024, " +
+                "\"description\": \"\", " +
+                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
+                "\"cast\": [" + actorId1 + "] " +
+                "}";
+
+        given()
+                .contentType("application/json")
+                .body(movieJson)
+                .when()
+                .post("/movies")
+                .then()
+                .statusCode(400)
+                .body("errors", hasItems(
+                        "IMDB ID cannot be blank",
+                        "Title cannot be blank",
+                        "Description cannot be blank"
+                ));
+    }
+
+    @Test
+    public void testGetNonExistentMovie() {
+        given()
+                .pathParam("imdbID", "nonexistent")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(404)
+                .body("message", equalTo("Movie not found."));
+    }
+
+    @Test
+    public void testCreateMovieWithNonExistentActors() {
+        String movieJson = "{ " +
+                "\"imdbID\": \"tt9999999\", " +
+                "\"title\": \"Movie with Non-Existent Actors\", " +
+                "\"releaseYear\": 2024, " +
+                "\"description\": \"A movie that references actors that do not exist.\", " +
+                "\"pictures\": [\"http://example.com/testmovie.jpg\"], " +
+                "\"cast\": [9999, 8888] " +
+                "}";
+
+        given()
+                .contentType("application/json")
+                .body(movieJson)
+                .when()
+                .post("/movies")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("One or more actors not found."));
+    }
+
+    @Test
+    public void testUpdateMovieWithNonExistentActors() {
+        String movieJson = "{ " +
+                "\"title\": \"Updated Movie\", " +
+                "\"releaseYear\": 1995, " +
+                "\"description\": \"Updated description.\", " +
+                "\"pictures\": [\"http://example.com/updatedpicture.jpg\"], " +
+                "\"cast\": [9999, 8888] " +
+                "}";
+
+        given()
+                .contentType("application/json")
+                .body(movieJson)
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .put("/movies/{imdbID}")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("One or more actors not found."));
+    }
+
+    @Test
+    public void testGetAllMoviesPaginationInvalidParameters2() {
+        given()
+                .when()
+                .get("/movies?page=-1&size=-5")
                 .then()
                 .statusCode(400)
                 .body("message", equalTo("Page and size parameters must be positive integers."));
@@ -510,6 +1546,36 @@ public class MovieResourceTest {
                 .then()
                 .statusCode(409)
                 .body("message", equalTo("Movie with this IMDb ID already exists."));
+
+        // The existing movie is left untouched
+        given()
+                .pathParam("imdbID", "tt0111161")
+                .when()
+                .get("/movies/{imdbID}")
+                .then()
+                .statusCode(200)
+                .body("title", equalTo("The Shawshank Redemption"));
+    }
+
+    @Test
+    public void testCreateDuplicateMovieWithNonExistentActors() {
+        String movieJson = "{ " +
+                "\"imdbID\": \"tt0111161\", " +
+                "\"title\": \"Duplicate Movie\", " +
+                "\"releaseYear\": 1994, " +
+                "\"description\": \"This is a duplicate movie.\", " +
+                "\"cast\": [9999] " +
+                "}";
+
+        // The conflict takes precedence over the unknown actor
+        given()
+                .contentType("application/json")
+                .body(movieJson)
+                .when()
+                .post("/movies")
+                .then()
+                .statusCode(409)
+                .body("message", equalTo("Movie with this IMDb ID already exists."));
     }
 
     @Test
@@ -532,4 +1598,36 @@ public class MovieResourceTest {
                 .statusCode(404)
                 .body("message", equalTo("Movie not found."));
     }
+
+    @Transactional
+    public void createTreasureMovies(int count) {
+        Actor actor = actorRepository.findById(actorId1);
+        for (int i = 0; i < count; i++) {
+            String imdbID = String.format("tt7%06d", i);
+            movieRepository.persist(new Movie(imdbID, "Treasure Hunt " + i, 2000 + i % 20,
+                    "A treasure is found.", List.of(), List.of(actor)));
+        }
+    }
+
+    @Transactional
+    public void createTestMovie(String imdbID, String title, int releaseYear, String description, Long actorId) {
+        movieRepository.persist(new Movie(imdbID, title, releaseYear, description, List.of(),
+                List.of(actorRepository.findById(actorId))));
+    }
+
+    @Transactional
+    public void createAdditionalMovies(int count) {
+        Actor actor = actorRepository.findById(actorId1);
+        for (int i = 0; i < count; i++) {
+            String imdbID = String.format("tt9%06d", i);
+            movieRepository.persist(new Movie(
+                    imdbID,
+                    "Generated Movie " + i,
+                    2000 + i % 20,
+                    "A generated movie description.",
+                    List.of("http://example.com/" + imdbID + ".jpg"),
+                    List.of(actor)
+            ));
+        }
+    }
 }